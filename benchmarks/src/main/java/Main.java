@@ -0,0 +1,101 @@
+import chess.ChessGame;
+import chess.Perft;
+import chess.engine.ParallelSearch;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
+import chess.engine.TranspositionTable;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+public class Main {
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("perft-count")) {
+            perft(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("smp-speedup")) {
+            smpSpeedup(args);
+            return;
+        }
+
+        //anything else is handed to JMH, with the gc profiler on so allocation rates are reported
+        var commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp() || commandLine.shouldList()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        var options = new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+
+    //perft-count <position|FEN> <depth>: counts positions, checks them against the known count (for the
+    //standard positions), and reports the speed
+    private static void perft(String[] args) {
+        if (args.length != 3) {
+            System.out.println("Expected: perft-count <position|\"FEN\"> <depth>");
+            System.out.println("Positions: " + java.util.Arrays.toString(Perft.Position.values()));
+            return;
+        }
+        //FENs always have slashes between the rows, and position names never do
+        boolean isFen = args[1].contains("/");
+        Perft.Position position = isFen ? null : Perft.Position.valueOf(args[1].toUpperCase());
+        ChessGame game = isFen ? ChessGame.fromFen(args[1]) : position.newGame();
+        int depth = Integer.parseInt(args[2]);
+
+        long start = System.nanoTime();
+        long nodes = Perft.perft(game, depth);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("perft(%s, %d) = %d in %.3fs (%.0f nodes/s)%n", isFen ? game.toFen() : position, depth,
+                nodes, seconds, nodes / seconds);
+        if (position != null && depth <= position.maxKnownDepth()) {
+            boolean correct = nodes == position.expectedNodes(depth);
+            System.out.println(correct ? "matches the known count" : "expected " + position.expectedNodes(depth));
+        }
+    }
+
+    //smp-speedup <threads> <depth>: searches each position to the depth with one thread and then with
+    //the given number of threads, and reports how much faster the threads got there and searched
+    private static void smpSpeedup(String[] args) {
+        if (args.length != 3) {
+            System.out.println("Expected: smp-speedup <threads> <depth>");
+            return;
+        }
+        int threads = Integer.parseInt(args[1]);
+        int depth = Integer.parseInt(args[2]);
+        Perft.Position[] positions = {Perft.Position.START, Perft.Position.KIWIPETE, Perft.Position.MIDDLEGAME};
+
+        //let the JIT compile the search before anything is timed
+        for (Perft.Position position : positions) {
+            search(position, 1, depth);
+            search(position, threads, depth);
+        }
+        double totalTime = 0;
+        double totalSpeed = 0;
+        for (Perft.Position position : positions) {
+            SearchResult single = search(position, 1, depth);
+            SearchResult parallel = search(position, threads, depth);
+            double timeSpeedup = (double) Math.max(1, single.timeMillis()) / Math.max(1, parallel.timeMillis());
+            double nodeSpeedup = (double) parallel.nodesPerSecond() / Math.max(1, single.nodesPerSecond());
+            System.out.printf("%-10s 1 thread: %6dms %9d nodes/s   %d threads: %6dms %9d nodes/s   "
+                            + "time to depth %.2fx, nodes/s %.2fx%n", position, single.timeMillis(),
+                    single.nodesPerSecond(), threads, parallel.timeMillis(), parallel.nodesPerSecond(),
+                    timeSpeedup, nodeSpeedup);
+            totalTime += timeSpeedup;
+            totalSpeed += nodeSpeedup;
+        }
+        System.out.printf("average speedup with %d threads: time to depth %.2fx, nodes/s %.2fx%n", threads,
+                totalTime / positions.length, totalSpeed / positions.length);
+    }
+
+    private static SearchResult search(Perft.Position position, int threads, int depth) {
+        try (ParallelSearch search = new ParallelSearch(threads, new TranspositionTable(64))) {
+            return search.search(position.newGame(), SearchLimits.depth(depth));
+        }
+    }
+}
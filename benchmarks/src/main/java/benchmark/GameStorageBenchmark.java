@@ -0,0 +1,58 @@
+package benchmark;
+
+import chess.ChessGame;
+import chess.GameCodec;
+import chess.Perft;
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the two ways games have been stored: as JSON with Gson, and packed with GameCodec. Run with
+ * the gc profiler (Main does this by default) to see how much each allocates.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class GameStorageBenchmark {
+
+    @Param({"START", "KIWIPETE"})
+    public Perft.Position position;
+
+    private final Gson gson = new Gson();
+    private ChessGame game;
+    private String json;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        game = position.newGame();
+        json = gson.toJson(game);
+        encoded = GameCodec.encode(game);
+        System.out.printf("%n%s: %d bytes of JSON, %d bytes encoded%n", position, json.length(), encoded.length);
+    }
+
+    @Benchmark
+    public String gsonWrite() {
+        return gson.toJson(game);
+    }
+
+    @Benchmark
+    public ChessGame gsonRead() {
+        return gson.fromJson(json, ChessGame.class);
+    }
+
+    @Benchmark
+    public byte[] codecWrite() {
+        return GameCodec.encode(game);
+    }
+
+    @Benchmark
+    public ChessGame codecRead() {
+        return GameCodec.decode(encoded);
+    }
+}
@@ -0,0 +1,87 @@
+package benchmark;
+
+import chess.*;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures move generation: perft over a whole tree, one pass of pieceMoves/validMoves over
+ * every piece in a position, and generating every valid move into a reused MoveList. Run with the gc profiler (Main does this by default) to see the
+ * allocation rate alongside the speed.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MoveGenerationBenchmark {
+
+    @Param({"START", "KIWIPETE", "ENDGAME", "PROMOTIONS"})
+    public Perft.Position position;
+
+    //any other position, as a FEN, used instead of the standard one (pass a single position with it)
+    @Param({""})
+    public String fen;
+
+    @Param({"3"})
+    public int depth;
+
+    private ChessGame game;
+    private final MoveList moves = new MoveList();
+
+    //reported by JMH as nodes per second next to the operations per second
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Nodes {
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            nodes = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        game = fen.isEmpty() ? position.newGame() : ChessGame.fromFen(fen);
+    }
+
+    @Benchmark
+    public long perft(Nodes counter) {
+        long nodes = Perft.perft(game, depth);
+        counter.nodes += nodes;
+        return nodes;
+    }
+
+    @Benchmark
+    public void pieceMoves(Blackhole blackhole) {
+        ChessBoard board = game.getBoard();
+        for (int row = 1; row <= 8; ++row) {
+            for (int col = 1; col <= 8; ++col) {
+                ChessPosition position = ChessPosition.of(row, col);
+                ChessPiece piece = board.getPiece(position);
+                if (piece != null) {
+                    blackhole.consume(piece.pieceMoves(board, position));
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void validMoves(Blackhole blackhole) {
+        for (int row = 1; row <= 8; ++row) {
+            for (int col = 1; col <= 8; ++col) {
+                blackhole.consume(game.validMoves(ChessPosition.of(row, col)));
+            }
+        }
+    }
+
+    @Benchmark
+    public int generateMoves() {
+        game.generateMoves(moves);
+        return moves.size();
+    }
+}
@@ -1,6 +1,7 @@
 import chess.*;
 import endpoints.*;
 import model.GameData;
+import model.GameSummary;
 import ui.ServerFacade;
 import websocket.MessageHandler;
 import websocket.WebSocketFacade;
@@ -24,7 +25,9 @@ public class ChessClient {
     //store gamesList
     Integer nextClientGameID = 1;
     private final Map<Integer, Integer> gameIdList = new TreeMap<>(); //<client id, database id>
-    private Collection<GameData> allGames = null;
+    private List<GameSummary> allGames = null;
+    private ListGamesRequest listFilters; //what the last list was filtered by, for listing more
+    private Integer nextPage; //where the next page of games starts, or null if there isn't one
 
     public ChessClient(String port, MessageHandler messageHandler) {
         serverFacade = new ServerFacade("http://localhost:" + port);
@@ -41,7 +44,7 @@ public class ChessClient {
                 case "register" -> register(params);
                 case "logout" -> logout();
                 case "create" -> createGame(params);
-                case "list" -> listGames();
+                case "list" -> listGames(params);
                 case "join" -> joinGame(params);
                 case "observe" -> observeGame(params);
                 case "quit" -> quit();
@@ -52,6 +55,7 @@ public class ChessClient {
                 case "yes" -> resign();
                 case "no" -> displayGame();
                 case "highlight" -> highlightLegalMoves(params);
+                case "analyze" -> analyze(params);
                 default -> help();
             };
         } catch (ResponseException ex) {
@@ -70,8 +74,9 @@ public class ChessClient {
                     """;
             case LOGGED_IN -> """
                     Available options are:
-                    list - list all chess games
-                    create <NAME> - create a chess game to play
+                    list [open] [mine] [active] - list chess games, optionally only those with a free seat, that you're playing in or that aren't over
+                    list more - list the next page of games
+                    create <NAME> [<WHITE|BLACK> <LEVEL>] - create a chess game to play, optionally with a bot (level 1-10) in one seat
                     join <ID> <WHITE|BLACK> - join a game as a player with the color of your choice
                     observe <ID> - join a game as a spectator
                     logout - log out
@@ -82,6 +87,7 @@ public class ChessClient {
                     redraw chess board - display the board
                     leave - leave the game
                     highlight legal moves <POSITION> - show selected piece's possible moves
+                    analyze [SECONDS] - have the server look for the best line from here (5 seconds by default)
                     help - list available commands
                     """;
             case PLAYING -> """
@@ -92,6 +98,7 @@ public class ChessClient {
                     make move <FROM POSITION> <TO POSITION> <PROMOTION> - move and promote a piece
                     resign - surrender the game to your opponent
                     highlight legal moves <POSITION> - show selected piece's possible moves
+                    analyze [SECONDS] - have the server look for the best line from here (5 seconds by default)
                     help - list available commands
                     """;
         };
@@ -153,38 +160,77 @@ public class ChessClient {
     public String createGame(String... params) throws ResponseException {
         assertLoggedIn();
         //sanitize input
-        if (params.length != 1) {
-            throw new ResponseException(400, "Expected: create <NAME>");
+        if (params.length != 1 && params.length != 3) {
+            throw new ResponseException(400, "Expected: create <NAME> [<WHITE|BLACK> <LEVEL>]");
+        }
+        String botColor = null;
+        Integer botLevel = null;
+        if (params.length == 3) {
+            botColor = params[1].toUpperCase();
+            if (!(botColor.equals("WHITE") || botColor.equals("BLACK"))) {
+                throw new ResponseException(400, "<WHITE|BLACK> should be either WHITE or BLACK");
+            }
+            try {
+                botLevel = Integer.parseInt(params[2]);
+            } catch (NumberFormatException e) {
+                throw new ResponseException(400, "<LEVEL> should be an integer");
+            }
         }
 
         //create the game
-        int dbGameID = serverFacade.createGame(new CreateGameRequest(authToken, params[0])).gameID();
+        int dbGameID = serverFacade.createGame(new CreateGameRequest(authToken, params[0], botColor, botLevel)).gameID();
         nextClientGameID = gameIdList.size();
         gameIdList.put(nextClientGameID, dbGameID); //optional, I think
 
         //after adding the game, refresh games list
-        allGames = serverFacade.listGames(new ListGamesRequest(authToken)).games();
+        allGames = new ArrayList<>(serverFacade.listGames(new ListGamesRequest(authToken)).games());
 
         return "Created game with the name " + params[0];
     }
-    public String listGames() throws ResponseException {
+    public String listGames(String... params) throws ResponseException {
         assertLoggedIn();
-        var gamesList = serverFacade.listGames(new ListGamesRequest(authToken)).games();
-        allGames = gamesList; //refresh list of games
-        gameIdList.clear();
+        //"list more" picks up where the last list left off, with the same filters
+        boolean more = params.length == 1 && params[0].equals("more");
+        if (more && nextPage == null) {
+            throw new ResponseException(400, "There are no more games to list");
+        }
+        if (!more) {
+            boolean openSeats = false;
+            boolean mine = false;
+            boolean inProgress = false;
+            for (String param : params) {
+                switch (param) {
+                    case "open" -> openSeats = true;
+                    case "mine" -> mine = true;
+                    case "active" -> inProgress = true;
+                    default -> throw new ResponseException(400, "Expected: list [open] [mine] [active] or list more");
+                }
+            }
+            listFilters = new ListGamesRequest(authToken, null, null, openSeats, mine, inProgress);
+            allGames = new ArrayList<>(); //refresh list of games
+            gameIdList.clear();
+            nextClientGameID = 1;
+        }
+        var page = serverFacade.listGames(new ListGamesRequest(authToken, more ? nextPage : null, null,
+                listFilters.openSeats(), listFilters.mine(), listFilters.inProgress()));
+        var gamesList = page.games();
+        allGames.addAll(gamesList);
+        nextPage = page.next();
 
         var result = new StringBuilder().append("Available games:\n");
-        nextClientGameID = 1;
         for (var dbGame : gamesList) {
             gameIdList.put(nextClientGameID, dbGame.gameID());
             result.append(nextClientGameID).append(". ").append(dbGame.gameName());
-            result.append(dbGame.game().getGameOver() ? " (Finished)\n" : '\n');
+            result.append(dbGame.gameOver() ? " (Finished)\n" : '\n');
             String white = (dbGame.whiteUsername() != null) ? dbGame.whiteUsername() : "Nobody";
             result.append("    ").append(white).append(" playing as white\n");
             String black = (dbGame.blackUsername() != null) ? dbGame.blackUsername() : "Nobody";
             result.append("    ").append(black).append(" playing as black\n");
             ++nextClientGameID;
         }
+        if (nextPage != null) {
+            result.append("Type \"list more\" to see more games\n");
+        }
 
         return result.toString();
     }
@@ -305,6 +351,29 @@ public class ChessClient {
         }
         return "";
     }
+    public String analyze(String... params) throws ResponseException {
+        assertInGame();
+        //sanitize input
+        if (params.length > 1) {
+            throw new ResponseException(400, "Expected: analyze [SECONDS]");
+        }
+        Long timeMillis = null;
+        if (params.length == 1) {
+            try {
+                timeMillis = Math.round(Double.parseDouble(params[0]) * 1000);
+            } catch (NumberFormatException e) {
+                throw new ResponseException(400, "[SECONDS] should be a number");
+            }
+        }
+
+        //the server sends the analysis as it goes
+        try {
+            webSocketFacade.analyze(authToken, gameData.gameID(), timeMillis);
+        } catch (Exception e) {
+            throw new ResponseException(500, e.getMessage());
+        }
+        return "";
+    }
     public String highlightLegalMoves(String... params) throws ResponseException {
         assertInGame();
         //sanitize input
@@ -358,10 +427,11 @@ public class ChessClient {
         }
     }
     private GameData selectGameData(int dbID) {
+        //the list only has a summary of each game: the game itself comes over the websocket once connected
         GameData chosenGame = null;
         for (var g : allGames) {
             if (g.gameID() == dbID) {
-                chosenGame = g;
+                chosenGame = new GameData(g.gameID(), g.whiteUsername(), g.blackUsername(), g.gameName(), new ChessGame());
             }
         }
         return chosenGame;
@@ -387,7 +457,7 @@ public class ChessClient {
         } catch (Exception e) {
             throw new ResponseException(400, "<POSITION> should be a letter and a number: e.g. e5");
         }
-        return new ChessPosition(row, col);
+        return ChessPosition.of(row, col);
     }
     private ChessPiece.PieceType parsePromotion(String promoteTo) throws ResponseException {
         return switch (promoteTo.toLowerCase()) {
@@ -475,7 +545,7 @@ public class ChessClient {
     private void putPiecesOnBoardHighlight(String[][] board, GameData chessGame, Collection<ChessPosition> highlight, ChessPosition target) {
         for (int r = 1; r <= 8; ++r) {
             for (int c = 1; c <= 8; ++c) {
-                ChessPiece p = chessGame.game().getBoard().getPiece(new ChessPosition(r, c));
+                ChessPiece p = chessGame.game().getBoard().getPiece(ChessPosition.of(r, c));
                 board[9-r][c] = squareColorHighlight(r, c, highlight, target) + printPiece(p) + RESET_BG_COLOR + RESET_TEXT_COLOR;
             }
         }
@@ -485,7 +555,7 @@ public class ChessClient {
         if (target != null && target.getRow() == row && target.getColumn() == col) {
             return SET_BG_COLOR_YELLOW;
         }
-        if (highlight != null && highlight.contains(new ChessPosition(row, col))) {
+        if (highlight != null && highlight.contains(ChessPosition.of(row, col))) {
             return (row + col) % 2 == 0 ? SET_BG_COLOR_DARK_GREEN : SET_BG_COLOR_GREEN;
         }
         return (row + col) % 2 == 0 ? SET_BG_COLOR_BLACK : SET_BG_COLOR_WHITE;
@@ -41,6 +41,7 @@ public class Repl implements MessageHandler {
             case NOTIFICATION -> notifyNotification((NotificationMessage) message);
             case ERROR -> notifyError((ErrorMessage) message);
             case LOAD_GAME -> notifyLoadGame((LoadGameMessage) message);
+            case ANALYSIS -> notifyAnalysis((AnalysisMessage) message);
         }
         printPrompt();
     }
@@ -57,4 +58,20 @@ public class Repl implements MessageHandler {
         client.updateGameData(message.getGame());
         System.out.print(client.displayGame());
     }
+
+    public void notifyAnalysis(AnalysisMessage message) {
+        //e.g. "depth 9: +0.35 e2e4 e7e5 g1f3" or "depth 12: #3 d1h5 ..."
+        String score;
+        if (message.getMateIn() != null) {
+            score = "#" + message.getMateIn();
+        } else {
+            score = String.format("%+.2f", message.getScore() / 100.0);
+        }
+        var line = new StringBuilder();
+        for (var move : message.getPrincipalVariation()) {
+            line.append(' ').append(move);
+        }
+        System.out.print(String.format("%sdepth %d: %s%s", message.isDone() ? "Best line, " : "",
+                message.getDepth(), score, line));
+    }
 }
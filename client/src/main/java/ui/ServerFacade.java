@@ -36,8 +36,16 @@ public class ServerFacade {
     }
 
     public ListGamesResult listGames(ListGamesRequest request) throws ResponseException {
-        var path = "/game";
-        return this.makeRequest("GET", path, request, ListGamesResult.class, request.authToken());
+        var path = new StringBuilder("/game?openSeats=").append(request.openSeats())
+                .append("&mine=").append(request.mine())
+                .append("&inProgress=").append(request.inProgress());
+        if (request.after() != null) {
+            path.append("&after=").append(request.after());
+        }
+        if (request.limit() != null) {
+            path.append("&limit=").append(request.limit());
+        }
+        return this.makeRequest("GET", path.toString(), request, ListGamesResult.class, request.authToken());
     }
 
     public CreateGameResult createGame(CreateGameRequest request) throws ResponseException {
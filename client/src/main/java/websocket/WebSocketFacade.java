@@ -4,6 +4,7 @@ import chess.ChessMove;
 import com.google.gson.Gson;
 import endpoints.ResponseException;
 import websocket.commands.*;
+import websocket.messages.AnalysisMessage;
 import websocket.messages.ErrorMessage;
 import websocket.messages.LoadGameMessage;
 import websocket.messages.NotificationMessage;
@@ -45,6 +46,7 @@ public class WebSocketFacade extends Endpoint {
                         case NOTIFICATION -> messageHandler.notify(new Gson().fromJson(message, NotificationMessage.class));
                         case ERROR -> messageHandler.notify(new Gson().fromJson(message, ErrorMessage.class));
                         case LOAD_GAME -> messageHandler.notify(new Gson().fromJson(message, LoadGameMessage.class));
+                        case ANALYSIS -> messageHandler.notify(new Gson().fromJson(message, AnalysisMessage.class));
                     }
                 }
             });
@@ -87,6 +89,15 @@ public class WebSocketFacade extends Endpoint {
         }
     }
 
+    public void analyze(String authToken, int gameID, Long timeMillis) throws ResponseException {
+        try {
+            var command = new AnalyzeCommand(authToken, gameID, timeMillis);
+            this.session.getBasicRemote().sendText(new Gson().toJson(command));
+        } catch (IOException ex) {
+            throw new ResponseException(500, ex.getMessage());
+        }
+    }
+
     public void resign(String authToken, int gameID) throws ResponseException {
         try {
             var command = new ResignCommand(authToken, gameID);
@@ -4,10 +4,12 @@ import server.Server;
 
 public class Main {
     public static void main(String[] args) {
-        var piece = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
+        var piece = ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
         System.out.println("♕ 240 Chess server.Server: " + piece);
 
         Server cheese = new Server();
         cheese.run(8080);
+        //so games in progress are saved when the server's shut down
+        Runtime.getRuntime().addShutdownHook(new Thread(cheese::stop));
     }
 }
\ No newline at end of file
@@ -0,0 +1,119 @@
+package dataaccess;
+
+import model.AuthData;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers the auth tokens that have been checked recently, in front of another AuthDAO, so checking a
+ * token that's in use is a lookup in memory. It holds at most maxSize tokens, dropping the least recently
+ * used, and forgets each one ttlMillis after looking it up, so a token deleted some other way isn't
+ * trusted for long. Logging out and clearing take effect right away.
+ * <p>
+ * Tokens that aren't found aren't remembered, so guessing tokens can't fill it up.
+ */
+public class CachedAuthDAO implements AuthDAO {
+    public static final int DEFAULT_MAX_SIZE = 10_000;
+    public static final long DEFAULT_TTL_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    /**
+     * How well the cache is doing
+     *
+     * @param hits tokens found in memory
+     * @param misses tokens looked up in the AuthDAO behind it
+     * @param size tokens in memory right now
+     */
+    public record Metrics(long hits, long misses, int size) {
+    }
+
+    private record Cached(AuthData authData, long expiresAt) {
+    }
+
+    private final AuthDAO auths;
+    private final long ttlMillis;
+    //in order of use, least recent first, so the eldest is the one to drop. Guarded by this.
+    private final LinkedHashMap<String, Cached> cache;
+    //counts logouts and clears, so a lookup that raced one doesn't put back a token it removed. Guarded by this.
+    private long invalidations;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public CachedAuthDAO(AuthDAO auths) {
+        this(auths, DEFAULT_MAX_SIZE, DEFAULT_TTL_MILLIS);
+    }
+
+    public CachedAuthDAO(AuthDAO auths, int maxSize, long ttlMillis) {
+        if (maxSize < 1 || ttlMillis < 0) {
+            throw new IllegalArgumentException("bad auth cache size or time to live");
+        }
+        this.auths = auths;
+        this.ttlMillis = ttlMillis;
+        cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Cached> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    @Override
+    public AuthData getAuth(String authToken) throws DataAccessException {
+        long seen;
+        synchronized (this) {
+            Cached cached = cache.get(authToken);
+            if (cached != null && cached.expiresAt() - System.currentTimeMillis() > 0) {
+                hits.increment();
+                return cached.authData();
+            }
+            if (cached != null) {
+                cache.remove(authToken);
+            }
+            seen = invalidations;
+        }
+
+        misses.increment();
+        AuthData authData = auths.getAuth(authToken);
+        synchronized (this) {
+            if (invalidations == seen) {
+                cache.put(authToken, new Cached(authData, System.currentTimeMillis() + ttlMillis));
+            }
+        }
+        return authData;
+    }
+
+    @Override
+    public void createAuth(AuthData authData) {
+        auths.createAuth(authData);
+    }
+
+    @Override
+    public void deleteAuth(String authToken) throws DataAccessException {
+        try {
+            auths.deleteAuth(authToken);
+        } finally {
+            synchronized (this) {
+                cache.remove(authToken);
+                ++invalidations;
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        try {
+            auths.clear();
+        } finally {
+            synchronized (this) {
+                cache.clear();
+                ++invalidations;
+            }
+        }
+    }
+
+    public synchronized Metrics getMetrics() {
+        return new Metrics(hits.sum(), misses.sum(), cache.size());
+    }
+}
@@ -0,0 +1,252 @@
+package dataaccess;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps database connections open between uses, so each request doesn't pay for a new TCP connection
+ * and login. At most maxSize connections are open at once; callers wait in line (first come, first
+ * served) for one to come back, up to a timeout. Closing a borrowed connection returns it to the pool.
+ * <p>
+ * A connection that has sat unused for a while is checked before it's handed out, since the database
+ * may have closed it from its end, and connections beyond minSize are closed once they've been unused
+ * for long enough.
+ */
+public final class ConnectionPool {
+    //how long a connection can sit unused before it's checked again, and before it's closed if the
+    //pool has more than minSize
+    static final long VALIDATE_AFTER_MILLIS = 30_000;
+    static final long IDLE_TIMEOUT_MILLIS = 10 * 60_000;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    /**
+     * Opens a new connection to the database
+     */
+    @FunctionalInterface
+    public interface Opener {
+        Connection open() throws SQLException;
+    }
+
+    /**
+     * A snapshot of how the pool is being used
+     *
+     * @param active connections borrowed right now
+     * @param idle connections open and waiting to be borrowed
+     * @param waiting callers waiting for a connection
+     * @param borrows connections handed out so far
+     * @param timeouts callers that gave up waiting
+     * @param averageWaitMillis how long callers have waited for a connection, on average
+     * @param maxWaitMillis the longest any caller has waited
+     */
+    public record Metrics(int active, int idle, int waiting, long borrows, long timeouts,
+                          double averageWaitMillis, double maxWaitMillis) {
+    }
+
+    //an unused connection, and when it was returned
+    private record Idle(Connection connection, long returnedAt) {
+    }
+
+    private final Opener opener;
+    private final int minSize;
+    private final long timeoutMillis;
+    //one permit for each connection that can be borrowed; fair, so callers get them in the order they asked
+    private final Semaphore permits;
+    //most recently returned first, so the connections in use stay few and warm
+    private final Deque<Idle> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger active = new AtomicInteger();
+    private final LongAdder borrows = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    /**
+     * @param opener opens new connections
+     * @param minSize how many connections to keep open even when they aren't being used
+     * @param maxSize the most connections that can be open at once
+     * @param timeoutMillis how long to wait for a connection before giving up
+     */
+    public ConnectionPool(Opener opener, int minSize, int maxSize, long timeoutMillis) {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize || timeoutMillis < 0) {
+            throw new IllegalArgumentException("bad connection pool size or timeout");
+        }
+        this.opener = opener;
+        this.minSize = minSize;
+        this.timeoutMillis = timeoutMillis;
+        permits = new Semaphore(maxSize, true);
+    }
+
+    /**
+     * Borrows a connection, waiting for one to be returned if they're all in use. Close it to return it.
+     *
+     * @throws SQLTransientConnectionException if none is returned in time
+     * @throws SQLException if a new connection can't be opened
+     */
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("interrupted while waiting for a database connection");
+        }
+        long waited = System.nanoTime() - start;
+        totalWaitNanos.add(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+        if (!acquired) {
+            timeouts.increment();
+            throw new SQLTransientConnectionException("no database connection was free after " + timeoutMillis + "ms");
+        }
+
+        try {
+            Connection connection = takeIdle();
+            if (connection == null) {
+                connection = opener.open();
+            }
+            borrows.increment();
+            active.incrementAndGet();
+            return lend(connection);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens connections until minSize are waiting to be borrowed (or the pool is full)
+     *
+     * @throws SQLException if a connection can't be opened
+     */
+    public void fill() throws SQLException {
+        while (idle.size() < minSize && permits.tryAcquire()) {
+            try {
+                idle.offerLast(new Idle(opener.open(), System.nanoTime()));
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    public Metrics getMetrics() {
+        long borrowed = borrows.sum();
+        long attempts = borrowed + timeouts.sum();
+        double averageWait = attempts == 0 ? 0 : totalWaitNanos.sum() / 1e6 / attempts;
+        return new Metrics(active.get(), idle.size(), permits.getQueueLength(), borrowed, timeouts.sum(),
+                averageWait, maxWaitNanos.get() / 1e6);
+    }
+
+    //the most recently returned connection that still works, or null if there isn't one
+    private Connection takeIdle() {
+        for (Idle next = idle.pollFirst(); next != null; next = idle.pollFirst()) {
+            if (!idleFor(next, VALIDATE_AFTER_MILLIS) || isValid(next.connection())) {
+                return next.connection();
+            }
+            closeQuietly(next.connection());
+        }
+        return null;
+    }
+
+    //wraps the connection so closing it returns it to the pool, and it can't be used after that
+    private Connection lend(Connection connection) {
+        var returned = new boolean[1];
+        var broken = new boolean[1];
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close" -> {
+                            if (!returned[0]) {
+                                returned[0] = true;
+                                giveBack(connection, broken[0]);
+                            }
+                            return null;
+                        }
+                        case "isClosed" -> {
+                            return returned[0] || connection.isClosed();
+                        }
+                        case "equals" -> {
+                            return proxy == args[0];
+                        }
+                        case "hashCode" -> {
+                            return System.identityHashCode(proxy);
+                        }
+                        default -> {
+                            if (returned[0]) {
+                                throw new SQLException("connection was already returned to the pool");
+                            }
+                        }
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        //SQL states starting with 08 mean the connection itself failed
+                        if (e.getCause() instanceof SQLException sql && sql.getSQLState() != null
+                                && sql.getSQLState().startsWith("08")) {
+                            broken[0] = true;
+                        }
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    private void giveBack(Connection connection, boolean broken) {
+        active.decrementAndGet();
+        try {
+            if (broken || connection.isClosed()) {
+                closeQuietly(connection);
+                return;
+            }
+            //a transaction left open is undone, so the next borrower starts clean
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            idle.offerFirst(new Idle(connection, System.nanoTime()));
+            closeExtraIdle();
+        } catch (SQLException e) {
+            closeQuietly(connection);
+        } finally {
+            permits.release();
+        }
+    }
+
+    //the least recently used connections are at the end, so only those need checking
+    private void closeExtraIdle() {
+        while (idle.size() > minSize) {
+            Idle oldest = idle.peekLast();
+            if (oldest == null || !idleFor(oldest, IDLE_TIMEOUT_MILLIS) || !idle.removeLastOccurrence(oldest)) {
+                return;
+            }
+            closeQuietly(oldest.connection());
+        }
+    }
+
+    private static boolean idleFor(Idle idle, long millis) {
+        return System.nanoTime() - idle.returnedAt() > TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    private static boolean isValid(Connection connection) {
+        try {
+            return connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            //it's being thrown away anyway
+        }
+    }
+}
@@ -2,19 +2,51 @@ package dataaccess;
 
 import chess.ChessGame;
 import model.GameData;
+import model.GameSummary;
 
 import java.util.Collection;
+import java.util.List;
 
 public interface GameDAO {
     public GameData getGame(int gameID) throws DataAccessException;
 
     public Collection<GameData> listGames();
 
+    /**
+     * Lists games without loading them, in order of gameID
+     *
+     * @param after only games with a greater gameID
+     * @param limit the most games to list
+     * @param player only games this user is playing in, or null for anyone's
+     * @param openSeats only games with a seat nobody has taken
+     * @param inProgress only games that aren't over
+     */
+    public List<GameSummary> listGameSummaries(int after, int limit, String player, boolean openSeats, boolean inProgress);
+
     public void createGame(GameData gameData);
 
+    /**
+     * Seats the user on a team, if nobody else has taken that seat. Sitting in a seat the user already has
+     * does nothing, and counts as claiming it.
+     *
+     * @return whether the user has the seat now
+     * @throws DataAccessException if the game doesn't exist
+     */
+    public boolean claimSeat(int gameID, ChessGame.TeamColor team, String username) throws DataAccessException;
+
     public void deleteGame(int gameID)  throws DataAccessException;
 
     public void updateGame(int gameID, ChessGame updatedGame)  throws DataAccessException;
 
+    /**
+     * Records a move made in a game
+     *
+     * @param ply the ply (see ChessGame.getPly()) of the position the move was made from
+     * @param move the move, packed by ChessBoard.encodeMove()
+     * @param updatedGame the game after the move
+     * @throws DataAccessException if the game doesn't exist, or another move was already made from that position
+     */
+    public void addMove(int gameID, int ply, int move, ChessGame updatedGame) throws DataAccessException;
+
     public void clear();
 }
@@ -2,9 +2,11 @@ package dataaccess;
 
 import chess.ChessGame;
 import model.GameData;
+import model.GameSummary;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 
 public class MemoryGameDAO implements GameDAO {
@@ -23,10 +25,35 @@ public class MemoryGameDAO implements GameDAO {
         return gameDatabase;
     }
 
+    public List<GameSummary> listGameSummaries(int after, int limit, String player, boolean openSeats, boolean inProgress) {
+        return gameDatabase.stream()
+                .filter(g -> g.gameID() > after)
+                .filter(g -> player == null || player.equals(g.whiteUsername()) || player.equals(g.blackUsername()))
+                .filter(g -> !openSeats || g.whiteUsername() == null || g.blackUsername() == null)
+                .filter(g -> !inProgress || !g.game().getGameOver())
+                .sorted(Comparator.comparingInt(GameData::gameID))
+                .limit(limit)
+                .map(g -> new GameSummary(g.gameID(), g.whiteUsername(), g.blackUsername(), g.gameName(), g.game().getGameOver()))
+                .toList();
+    }
+
     public void createGame(GameData gameData) {
         gameDatabase.add(gameData);
     }
 
+    public boolean claimSeat(int gameID, ChessGame.TeamColor team, String username) throws DataAccessException {
+        GameData g = getGame(gameID);
+        String seated = team == ChessGame.TeamColor.WHITE ? g.whiteUsername() : g.blackUsername();
+        if (seated != null && !seated.equals(username)) {
+            return false;
+        }
+        GameData update = team == ChessGame.TeamColor.WHITE
+                ? new GameData(gameID, username, g.blackUsername(), g.gameName(), g.game())
+                : new GameData(gameID, g.whiteUsername(), username, g.gameName(), g.game());
+        gameDatabase.set(gameDatabase.indexOf(g), update);
+        return true;
+    }
+
     public void deleteGame(int gameID)  throws DataAccessException {
         gameDatabase.remove(getGame(gameID));
     }
@@ -35,6 +62,10 @@ public class MemoryGameDAO implements GameDAO {
         gameDatabase.clear();
     }
 
+    public void addMove(int gameID, int ply, int move, ChessGame updatedGame) throws DataAccessException {
+        updateGame(gameID, updatedGame);
+    }
+
     public void updateGame(int gameID, ChessGame updatedGame)  throws DataAccessException {
         GameData gameData = gameDatabase.get(gameID);
         GameData update = new GameData(gameID, gameData.whiteUsername(), gameData.blackUsername(), gameData.gameName(), updatedGame);
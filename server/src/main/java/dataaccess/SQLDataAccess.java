@@ -1,44 +1,56 @@
 package dataaccess;
 
 import chess.ChessGame;
+import chess.GameCodec;
+import chess.InvalidMoveException;
+import chess.LegacyGameJson;
+import chess.Move;
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import endpoints.ResponseException;
 import model.AuthData;
 import model.GameData;
+import model.GameSummary;
 import model.UserData;
 
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import static java.sql.Types.NULL;
 
 public class SQLDataAccess implements UserDAO, GameDAO, AuthDAO {
+    //moves are added to the moves table one row at a time, and every this many plies (and when the game
+    //ends) the whole game is saved too, so reading a game never has more than this many moves to replay
+    static final int SNAPSHOT_INTERVAL = 20;
+
     public SQLDataAccess() throws ResponseException {
         configureDatabase();
     }
 
     private void executeUpdate(String statement, Object... params) throws ResponseException {
-        try (var conn = DatabaseManager.getConnection()) {
-            var ps = conn.prepareStatement(statement);
+        try (var conn = DatabaseManager.getConnection();
+             var ps = conn.prepareStatement(statement)) {
             for (var i = 0; i < params.length; i++) {
                 var param = params[i];
                 switch (param) {
                     case String p -> ps.setString(i + 1, p);
                     case Integer p -> ps.setInt(i + 1, p);
-                    case ChessGame p -> {
-                        var json = new Gson().toJson(p);
-                        ps.setString(i + 1, json);
-                    }
+                    case Boolean p -> ps.setBoolean(i + 1, p);
+                    case ChessGame p -> ps.setBytes(i + 1, GameCodec.encode(p));
                     case null -> ps.setNull(i + 1, NULL);
                     default -> {
                     }
                 }
             }
             ps.executeUpdate();
-            ps.close();
         } catch (SQLException | DataAccessException e) {
             throw new ResponseException(500, String.format("unable to update database: %s, %s", statement, e.getMessage()));
         }
@@ -81,15 +93,13 @@ public class SQLDataAccess implements UserDAO, GameDAO, AuthDAO {
         }
     }
 
-    private GameData readGameFromJson(ResultSet rs) {
+    private GameData readGame(ResultSet rs) {
         try {
             int gameID = rs.getInt("gameID");
             String whiteUsername = rs.getString("whiteUsername");
             String blackUsername = rs.getString("blackUserName");
             String gameName = rs.getString("gameName");
-            //deserialize json into ChessGame
-            var builder = new GsonBuilder();
-            var chessGame = builder.create().fromJson(rs.getString("game"), ChessGame.class);
+            var chessGame = decodeGame(rs.getBytes("game"));
 
             return new GameData(gameID, whiteUsername, blackUsername, gameName, chessGame);
         } catch (Exception e) {
@@ -97,20 +107,49 @@ public class SQLDataAccess implements UserDAO, GameDAO, AuthDAO {
         }
     }
 
+    private static ChessGame decodeGame(byte[] stored) {
+        //games stored before they were packed with GameCodec are JSON, which always starts with '{'. The
+        //oldest are from before boards were bitboards, which Gson can't read into today's classes.
+        if (isJson(stored)) {
+            String json = new String(stored, StandardCharsets.UTF_8);
+            if (LegacyGameJson.matches(json)) {
+                return LegacyGameJson.read(json);
+            }
+            return new Gson().fromJson(json, ChessGame.class);
+        }
+        return GameCodec.decode(stored);
+    }
+
+    private static boolean isJson(byte[] stored) {
+        return stored.length > 0 && stored[0] == '{';
+    }
+
     @Override
     public GameData getGame(int gameID) throws DataAccessException {
         try (var conn = DatabaseManager.getConnection()) {
+            GameData gameData;
             var statement = "SELECT gameID, whiteUsername, blackUsername, gameName, game FROM games WHERE gameID= ?;";
             try (var ps = conn.prepareStatement(statement)) {
                 ps.setInt(1, gameID);
                 try (var rs = ps.executeQuery()) {
                     if (rs.next()) {
-                        return readGameFromJson(rs);
+                        gameData = readGame(rs);
                     } else {
                         throw new DataAccessException("Error: game doesn't exist");
                     }
                 }
             }
+
+            //catch the game up with the moves made since it was saved
+            statement = "SELECT gameID, ply, move FROM moves WHERE gameID = ? AND ply >= ? ORDER BY ply;";
+            try (var ps = conn.prepareStatement(statement)) {
+                ps.setInt(1, gameID);
+                ps.setInt(2, gameData.game().getPly());
+                try (var rs = ps.executeQuery()) {
+                    replayMoves(rs, Map.of(gameID, gameData.game()));
+                }
+            }
+            return gameData;
         } catch (DataAccessException e) {
             throw new DataAccessException(e.getMessage());
         } catch (Exception e) {
@@ -120,13 +159,66 @@ public class SQLDataAccess implements UserDAO, GameDAO, AuthDAO {
 
     @Override
     public Collection<GameData> listGames() {
-        var result = new ArrayList<GameData>();
+        var result = new LinkedHashMap<Integer, GameData>();
         try (var conn = DatabaseManager.getConnection()) {
             var statement = "SELECT * FROM games;";
             try (var ps = conn.prepareStatement(statement)) {
                 try (var rs = ps.executeQuery()) {
                     while (rs.next()) {
-                        result.add(readGameFromJson(rs));
+                        GameData gameData = readGame(rs);
+                        result.put(gameData.gameID(), gameData);
+                    }
+                }
+            }
+
+            //catch every game up with the moves made since it was saved, in one query
+            statement = """
+                    SELECT m.gameID, m.ply, m.move FROM moves m JOIN games g ON g.gameID = m.gameID
+                    WHERE m.ply >= g.snapshotPly ORDER BY m.gameID, m.ply;
+                    """;
+            var games = new LinkedHashMap<Integer, ChessGame>();
+            result.forEach((gameID, gameData) -> games.put(gameID, gameData.game()));
+            try (var ps = conn.prepareStatement(statement)) {
+                try (var rs = ps.executeQuery()) {
+                    replayMoves(rs, games);
+                }
+            }
+        } catch (Exception e) {
+            throw new ResponseException(500, String.format("Unable to read data: %s", e.getMessage()));
+        }
+        return result.values();
+    }
+
+    @Override
+    public List<GameSummary> listGameSummaries(int after, int limit, String player, boolean openSeats, boolean inProgress) {
+        //only the columns the lobby shows, so no game is read, let alone decoded or caught up
+        var statement = new StringBuilder("SELECT gameID, whiteUsername, blackUsername, gameName, gameOver FROM games WHERE gameID > ?");
+        var params = new ArrayList<Object>(List.of(after));
+        if (player != null) {
+            statement.append(" AND (whiteUsername = ? OR blackUsername = ?)");
+            params.add(player);
+            params.add(player);
+        }
+        if (openSeats) {
+            statement.append(" AND (whiteUsername IS NULL OR blackUsername IS NULL)");
+        }
+        if (inProgress) {
+            statement.append(" AND NOT gameOver");
+        }
+        //paging by the last gameID seen instead of an OFFSET means every page is as quick as the first
+        statement.append(" ORDER BY gameID LIMIT ?");
+        params.add(limit);
+
+        var result = new ArrayList<GameSummary>();
+        try (var conn = DatabaseManager.getConnection()) {
+            try (var ps = conn.prepareStatement(statement.toString())) {
+                for (int i = 0; i < params.size(); ++i) {
+                    ps.setObject(i + 1, params.get(i));
+                }
+                try (var rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        result.add(new GameSummary(rs.getInt("gameID"), rs.getString("whiteUsername"),
+                                rs.getString("blackUsername"), rs.getString("gameName"), rs.getBoolean("gameOver")));
                     }
                 }
             }
@@ -136,10 +228,82 @@ public class SQLDataAccess implements UserDAO, GameDAO, AuthDAO {
         return result;
     }
 
+    /**
+     * @return the greatest gameID in use, or 0 if there are no games
+     */
+    public int lastGameID() {
+        try (var conn = DatabaseManager.getConnection()) {
+            try (var ps = conn.prepareStatement("SELECT MAX(gameID) FROM games;")) {
+                try (var rs = ps.executeQuery()) {
+                    return rs.next() ? rs.getInt(1) : 0;
+                }
+            }
+        } catch (Exception e) {
+            throw new ResponseException(500, String.format("Unable to read data: %s", e.getMessage()));
+        }
+    }
+
+    //plays each game's moves from the ply it was saved at on, given in order of game and ply
+    private static void replayMoves(ResultSet rs, Map<Integer, ChessGame> games) throws SQLException {
+        while (rs.next()) {
+            int gameID = rs.getInt("gameID");
+            int ply = rs.getInt("ply");
+            ChessGame game = games.get(gameID);
+            //the snapshot can be newer than the snapshotPly the query went by, in games saved before
+            //there was a moves table
+            if (game == null || ply < game.getPly()) {
+                continue;
+            }
+            try {
+                if (ply != game.getPly()) {
+                    throw new InvalidMoveException("ply " + game.getPly() + " is missing");
+                }
+                game.makeMove(Move.toChessMove(rs.getInt("move")));
+            } catch (InvalidMoveException e) {
+                throw new ResponseException(500, String.format("Error: the moves of game %d can't be replayed: %s",
+                        gameID, e.getMessage()));
+            }
+        }
+    }
+
     @Override
     public void createGame(GameData gameData) {
-        var statement = "INSERT INTO games VALUES (?, ?, ?, ?, ?)";
-        executeUpdate(statement, gameData.gameID(), gameData.whiteUsername(), gameData.blackUsername(), gameData.gameName(), gameData.game());
+        var statement = "INSERT INTO games (gameID, whiteUsername, blackUsername, gameName, game, snapshotPly, gameOver) VALUES (?, ?, ?, ?, ?, ?, ?)";
+        executeUpdate(statement, gameData.gameID(), gameData.whiteUsername(), gameData.blackUsername(), gameData.gameName(),
+                gameData.game(), gameData.game().getPly(), gameData.game().getGameOver());
+    }
+
+    @Override
+    public boolean claimSeat(int gameID, ChessGame.TeamColor team, String username) throws DataAccessException {
+        //the seat is checked and taken in one statement, so two users can't both get it. The driver counts
+        //the rows matched, not changed, so a user sitting back down in their own seat still counts
+        String seat = team == ChessGame.TeamColor.WHITE ? "whiteUsername" : "blackUsername";
+        var statement = "UPDATE games SET " + seat + " = ? WHERE gameID = ? AND (" + seat + " IS NULL OR " + seat + " = ?)";
+        try (var conn = DatabaseManager.getConnection()) {
+            try (var ps = conn.prepareStatement(statement)) {
+                ps.setString(1, username);
+                ps.setInt(2, gameID);
+                ps.setString(3, username);
+                if (ps.executeUpdate() == 1) {
+                    return true;
+                }
+            }
+
+            //nothing changed: either someone else has the seat or there's no such game
+            try (var ps = conn.prepareStatement("SELECT 1 FROM games WHERE gameID = ?")) {
+                ps.setInt(1, gameID);
+                try (var rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        return false;
+                    }
+                }
+            }
+            throw new DataAccessException("Error: game doesn't exist");
+        } catch (DataAccessException e) {
+            throw new DataAccessException(e.getMessage());
+        } catch (Exception e) {
+            throw new ResponseException(500, String.format("unable to update database: %s", e.getMessage()));
+        }
     }
 
     @Override
@@ -148,6 +312,8 @@ public class SQLDataAccess implements UserDAO, GameDAO, AuthDAO {
             getGame(gameID);
             var statement = "DELETE FROM games WHERE gameID=?";
             executeUpdate(statement, gameID);
+            statement = "DELETE FROM moves WHERE gameID=?";
+            executeUpdate(statement, gameID);
         } catch(Exception e) {
             throw new DataAccessException("Error: game doesn't exist");
         }
@@ -156,8 +322,8 @@ public class SQLDataAccess implements UserDAO, GameDAO, AuthDAO {
     @Override
     public void updateGame(int gameID, ChessGame updatedGame)  throws DataAccessException {
         try {
-            var statement = "UPDATE games SET game = ? WHERE gameID=?";
-            executeUpdate(statement, updatedGame, gameID);
+            var statement = "UPDATE games SET game = ?, snapshotPly = ?, gameOver = ? WHERE gameID=?";
+            executeUpdate(statement, updatedGame, updatedGame.getPly(), updatedGame.getGameOver(), gameID);
         } catch(Exception e) {
             throw new DataAccessException("Error: game doesn't exist");
         }
@@ -170,13 +336,69 @@ public class SQLDataAccess implements UserDAO, GameDAO, AuthDAO {
             String name = updatedGameData.gameName();
             ChessGame game = updatedGameData.game();
 
-            var statement = "UPDATE games SET whiteUsername = ?, blackUsername = ?, gameName = ?, game = ? WHERE gameID=?";
-            executeUpdate(statement, white, black, name, game, gameID);
+            var statement = "UPDATE games SET whiteUsername = ?, blackUsername = ?, gameName = ?, game = ?, snapshotPly = ?, gameOver = ? WHERE gameID=?";
+            executeUpdate(statement, white, black, name, game, game.getPly(), game.getGameOver(), gameID);
         } catch(Exception e) {
             throw new DataAccessException("Error: game doesn't exist");
         }
     }
 
+    @Override
+    public void addMove(int gameID, int ply, int move, ChessGame updatedGame) throws DataAccessException {
+        try (var conn = DatabaseManager.getConnection()) {
+            var statement = "INSERT INTO moves (gameID, ply, move) VALUES (?, ?, ?)";
+            try (var ps = conn.prepareStatement(statement)) {
+                ps.setInt(1, gameID);
+                ps.setInt(2, ply);
+                ps.setInt(3, move);
+                ps.executeUpdate();
+            }
+        } catch (SQLIntegrityConstraintViolationException e) {
+            //the ply is the key, so two moves can't both be made from the same position
+            throw new DataAccessException("Error: the game has already moved on");
+        } catch (SQLException e) {
+            throw new ResponseException(500, String.format("unable to update database: %s", e.getMessage()));
+        }
+        if (updatedGame.getPly() % SNAPSHOT_INTERVAL == 0 || updatedGame.getGameOver()) {
+            updateGame(gameID, updatedGame);
+        }
+    }
+
+    //saves games kept in memory by WriteBehindGameDAO: their new moves and where they are now, every game
+    //in one batch per table, all in one transaction
+    void saveGames(List<WriteBehindGameDAO.DirtyGame> games) throws ResponseException {
+        try (var conn = DatabaseManager.getConnection()) {
+            conn.setAutoCommit(false);
+            try (var insert = conn.prepareStatement("INSERT INTO moves (gameID, ply, move, madeAt) VALUES (?, ?, ?, ?)");
+                 var update = conn.prepareStatement("UPDATE games SET game = ?, snapshotPly = ?, gameOver = ? WHERE gameID = ?")) {
+                for (var game : games) {
+                    for (var move : game.moves()) {
+                        insert.setInt(1, game.gameID());
+                        insert.setInt(2, move.ply());
+                        insert.setInt(3, move.move());
+                        insert.setTimestamp(4, new Timestamp(move.madeAtMillis()));
+                        insert.addBatch();
+                    }
+                    update.setBytes(1, game.game());
+                    update.setInt(2, game.ply());
+                    update.setBoolean(3, game.gameOver());
+                    update.setInt(4, game.gameID());
+                    update.addBatch();
+                }
+                insert.executeBatch();
+                update.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException | DataAccessException e) {
+            throw new ResponseException(500, String.format("unable to update database: %s", e.getMessage()));
+        }
+    }
+
     @Override
     public UserData getUser(String username) throws DataAccessException {
         try (var conn = DatabaseManager.getConnection()) {
@@ -211,6 +433,8 @@ public class SQLDataAccess implements UserDAO, GameDAO, AuthDAO {
         executeUpdate(statement);
         statement = "TRUNCATE games";
         executeUpdate(statement);
+        statement = "TRUNCATE moves";
+        executeUpdate(statement);
     }
 
     private void configureDatabase() throws ResponseException {
@@ -222,6 +446,20 @@ public class SQLDataAccess implements UserDAO, GameDAO, AuthDAO {
                         preparedStatement.executeUpdate();
                     }
                 }
+                migrateGamesToBinary(conn);
+                if (columnType(conn, "games", "snapshotPly") == null) {
+                    try (var ps = conn.prepareStatement("ALTER TABLE games ADD COLUMN snapshotPly INT NOT NULL DEFAULT 0")) {
+                        ps.executeUpdate();
+                    }
+                }
+                addGameOverColumn(conn);
+                for (String player : new String[] {"whiteUsername", "blackUsername"}) {
+                    if (!hasIndex(conn, "games", player)) {
+                        try (var ps = conn.prepareStatement("CREATE INDEX " + player + " ON games (" + player + ")")) {
+                            ps.executeUpdate();
+                        }
+                    }
+                }
             } catch (SQLException ex) {
                 throw new ResponseException(500, String.format("Unable to configure database: %s", ex.getMessage()));
             }
@@ -230,6 +468,76 @@ public class SQLDataAccess implements UserDAO, GameDAO, AuthDAO {
         }
     }
 
+    //games used to be stored as JSON in a TEXT column: switch the column to binary (which keeps the
+    //JSON's bytes), then pack each JSON game. Games that somehow stay JSON can still be read.
+    private void migrateGamesToBinary(Connection conn) throws SQLException {
+        String type = columnType(conn, "games", "game");
+        if (type == null || type.equalsIgnoreCase("blob")) {
+            return;
+        }
+        try (var ps = conn.prepareStatement("ALTER TABLE games MODIFY game BLOB NOT NULL")) {
+            ps.executeUpdate();
+        }
+        try (var select = conn.prepareStatement("SELECT gameID, game FROM games WHERE SUBSTRING(game, 1, 1) = '{'");
+             var update = conn.prepareStatement("UPDATE games SET game = ? WHERE gameID = ?");
+             var rs = select.executeQuery()) {
+            while (rs.next()) {
+                update.setBytes(1, GameCodec.encode(decodeGame(rs.getBytes("game"))));
+                update.setInt(2, rs.getInt("gameID"));
+                update.addBatch();
+            }
+            update.executeBatch();
+        }
+    }
+
+    //whether each game is over is kept in its own column too, so games can be listed without reading them.
+    //games that finished before there was a column are found by reading each game once. A game's saved
+    //whenever it ends, so the saved games are enough.
+    private void addGameOverColumn(Connection conn) throws SQLException {
+        if (columnType(conn, "games", "gameOver") != null) {
+            return;
+        }
+        try (var ps = conn.prepareStatement("ALTER TABLE games ADD COLUMN gameOver BOOLEAN NOT NULL DEFAULT FALSE")) {
+            ps.executeUpdate();
+        }
+        try (var select = conn.prepareStatement("SELECT gameID, game FROM games");
+             var update = conn.prepareStatement("UPDATE games SET gameOver = TRUE WHERE gameID = ?");
+             var rs = select.executeQuery()) {
+            while (rs.next()) {
+                if (decodeGame(rs.getBytes("game")).getGameOver()) {
+                    update.setInt(1, rs.getInt("gameID"));
+                    update.addBatch();
+                }
+            }
+            update.executeBatch();
+        }
+    }
+
+    private static boolean hasIndex(Connection conn, String table, String index) throws SQLException {
+        var statement = "SELECT 1 FROM information_schema.STATISTICS "
+                + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND INDEX_NAME = ?";
+        try (var ps = conn.prepareStatement(statement)) {
+            ps.setString(1, table);
+            ps.setString(2, index);
+            try (var rs = ps.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    //the column's type, or null if the table doesn't have it
+    private static String columnType(Connection conn, String table, String column) throws SQLException {
+        var statement = "SELECT DATA_TYPE FROM information_schema.COLUMNS "
+                + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND COLUMN_NAME = ?";
+        try (var ps = conn.prepareStatement(statement)) {
+            ps.setString(1, table);
+            ps.setString(2, column);
+            try (var rs = ps.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        }
+    }
+
     private final String[] createStatements = {
             """
             CREATE TABLE IF NOT EXISTS users (
@@ -252,8 +560,21 @@ public class SQLDataAccess implements UserDAO, GameDAO, AuthDAO {
               whiteUsername VARCHAR(255) DEFAULT NULL,
               blackUsername VARCHAR(255) DEFAULT NULL,
               gameName VARCHAR(255) NOT NULL,
-              game TEXT NOT NULL,
-              PRIMARY KEY (gameID)
+              game BLOB NOT NULL,
+              snapshotPly INT NOT NULL DEFAULT 0,
+              gameOver BOOLEAN NOT NULL DEFAULT FALSE,
+              PRIMARY KEY (gameID),
+              INDEX whiteUsername (whiteUsername),
+              INDEX blackUsername (blackUsername)
+            );
+            """,
+            """
+            CREATE TABLE IF NOT EXISTS moves (
+              gameID INT NOT NULL,
+              ply INT NOT NULL,
+              move SMALLINT UNSIGNED NOT NULL,
+              madeAt TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+              PRIMARY KEY (gameID, ply)
             );
             """
     };
@@ -0,0 +1,323 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.GameCodec;
+import endpoints.ResponseException;
+import model.GameData;
+import model.GameSummary;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the games being played in memory, in front of the database. Reading a game never waits on the
+ * database once it's loaded, and moves are saved in the background: every FLUSH_MILLIS, all the moves
+ * made since the last flush are written in one batch. A game that ends is saved right away, and so is
+ * everything else when the store is closed.
+ * <p>
+ * Seats are still written straight to the database, so joining a game stays race-free and the game
+ * list always shows who's playing. Games nobody has touched in a while are dropped from memory.
+ */
+public class WriteBehindGameDAO implements GameDAO {
+    static final long FLUSH_MILLIS = 1000;
+    static final long EVICT_AFTER_MILLIS = 10 * 60_000;
+
+    //a move made since the game was last saved
+    record PendingMove(int ply, int move, long madeAtMillis) {
+    }
+
+    //what's written when a game is saved: its moves since it was last saved, and where it is now
+    record DirtyGame(int gameID, byte[] game, int ply, boolean gameOver, List<PendingMove> moves) {
+    }
+
+    //a game in memory, guarded by its own lock. The game is kept packed, so every read gets its own copy
+    //and callers can't change it behind the store's back.
+    private static final class Entry {
+        final int gameID;
+        String whiteUsername;
+        String blackUsername;
+        final String gameName;
+        byte[] game;
+        int ply;
+        boolean gameOver;
+        List<PendingMove> pendingMoves = new ArrayList<>();
+        boolean dirty;
+        long lastUsed = System.currentTimeMillis();
+        //set once the entry's been dropped, so anyone still holding it looks the game up again
+        boolean evicted;
+
+        Entry(GameData gameData) {
+            gameID = gameData.gameID();
+            whiteUsername = gameData.whiteUsername();
+            blackUsername = gameData.blackUsername();
+            gameName = gameData.gameName();
+            setGame(gameData.game());
+        }
+
+        void setGame(ChessGame updatedGame) {
+            game = GameCodec.encode(updatedGame);
+            ply = updatedGame.getPly();
+            gameOver = updatedGame.getGameOver();
+        }
+    }
+
+    @FunctionalInterface
+    private interface EntryAction<T> {
+        T apply(Entry entry) throws DataAccessException;
+    }
+
+    private final SQLDataAccess database;
+    private final ConcurrentHashMap<Integer, Entry> games = new ConcurrentHashMap<>();
+    //only one thing writes games to the database at a time. Always taken before an entry's lock, never after.
+    private final Object flushLock = new Object();
+    //counts deletes, clears and seats claimed, so a game loaded from the database while one ran isn't put in
+    //memory out of date. Guarded by flushLock.
+    private long invalidations;
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "game-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public WriteBehindGameDAO(SQLDataAccess database) {
+        this.database = database;
+        flusher.scheduleWithFixedDelay(this::flushInBackground, FLUSH_MILLIS, FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public GameData getGame(int gameID) throws DataAccessException {
+        return withEntry(gameID, entry -> new GameData(gameID, entry.whiteUsername, entry.blackUsername, entry.gameName,
+                GameCodec.decode(entry.game)));
+    }
+
+    @Override
+    public Collection<GameData> listGames() {
+        flush();
+        return database.listGames();
+    }
+
+    @Override
+    public List<GameSummary> listGameSummaries(int after, int limit, String player, boolean openSeats, boolean inProgress) {
+        //seats and finished games are saved right away, so the database's list is already up to date
+        return database.listGameSummaries(after, limit, player, openSeats, inProgress);
+    }
+
+    @Override
+    public void createGame(GameData gameData) {
+        database.createGame(gameData);
+    }
+
+    @Override
+    public boolean claimSeat(int gameID, ChessGame.TeamColor team, String username) throws DataAccessException {
+        //joining is one statement, so a game is never loaded just to claim a seat in it
+        if (!database.claimSeat(gameID, team, username)) {
+            return false;
+        }
+        Entry entry;
+        synchronized (flushLock) {
+            ++invalidations;
+            entry = games.get(gameID);
+        }
+        if (entry != null) {
+            synchronized (entry) {
+                if (team == ChessGame.TeamColor.WHITE) {
+                    entry.whiteUsername = username;
+                } else {
+                    entry.blackUsername = username;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void deleteGame(int gameID) throws DataAccessException {
+        synchronized (flushLock) {
+            ++invalidations;
+            Entry entry = games.remove(gameID);
+            if (entry != null) {
+                synchronized (entry) {
+                    entry.evicted = true;
+                }
+            }
+            database.deleteGame(gameID);
+        }
+    }
+
+    @Override
+    public void updateGame(int gameID, ChessGame updatedGame) throws DataAccessException {
+        boolean gameOver = withEntry(gameID, entry -> {
+            entry.setGame(updatedGame);
+            entry.dirty = true;
+            return entry.gameOver;
+        });
+        if (gameOver) {
+            saveFinishedGame();
+        }
+    }
+
+    /**
+     * Changes the players and the game at once, saving it right away
+     */
+    public void updateGame(int gameID, GameData updatedGameData) throws DataAccessException {
+        synchronized (flushLock) {
+            withEntry(gameID, entry -> {
+                database.updateGame(gameID, updatedGameData);
+                entry.whiteUsername = updatedGameData.whiteUsername();
+                entry.blackUsername = updatedGameData.blackUsername();
+                entry.setGame(updatedGameData.game());
+                return null;
+            });
+        }
+    }
+
+    @Override
+    public void addMove(int gameID, int ply, int move, ChessGame updatedGame) throws DataAccessException {
+        boolean gameOver = withEntry(gameID, entry -> {
+            //the same check the moves table's key makes, so two moves can't both be made from the same position
+            if (ply != entry.ply) {
+                throw new DataAccessException("Error: the game has already moved on");
+            }
+            entry.setGame(updatedGame);
+            entry.pendingMoves.add(new PendingMove(ply, move, System.currentTimeMillis()));
+            entry.dirty = true;
+            return entry.gameOver;
+        });
+        if (gameOver) {
+            saveFinishedGame();
+        }
+    }
+
+    @Override
+    public void clear() {
+        synchronized (flushLock) {
+            ++invalidations;
+            games.values().forEach(entry -> {
+                synchronized (entry) {
+                    entry.evicted = true;
+                }
+            });
+            games.clear();
+            database.clear();
+        }
+    }
+
+    /**
+     * Saves every game that's changed since it was last saved, in one batch
+     *
+     * @throws ResponseException if they can't be saved; they're kept to be tried again
+     */
+    public void flush() throws ResponseException {
+        synchronized (flushLock) {
+            var dirty = new ArrayList<DirtyGame>();
+            for (Entry entry : games.values()) {
+                synchronized (entry) {
+                    if (entry.dirty && !entry.evicted) {
+                        dirty.add(new DirtyGame(entry.gameID, entry.game, entry.ply, entry.gameOver, entry.pendingMoves));
+                        entry.pendingMoves = new ArrayList<>();
+                        entry.dirty = false;
+                    }
+                }
+            }
+            if (dirty.isEmpty()) {
+                return;
+            }
+            try {
+                database.saveGames(dirty);
+            } catch (RuntimeException e) {
+                //put the moves back in front of any made since, to be saved next time
+                for (DirtyGame game : dirty) {
+                    Entry entry = games.get(game.gameID());
+                    if (entry != null) {
+                        synchronized (entry) {
+                            entry.pendingMoves.addAll(0, game.moves());
+                            entry.dirty = true;
+                        }
+                    }
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Stops flushing in the background, and saves everything that's changed
+     */
+    public void close() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    //saves a game that just ended right away. The move is already made, so failing to save it isn't the mover's
+    //problem, and the game is still saved in the background.
+    private void saveFinishedGame() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            //the game stays dirty, and is tried again next time
+        }
+    }
+
+    private void flushInBackground() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            //the games stay dirty, and are tried again next time
+            return;
+        }
+        evictIdle();
+    }
+
+    //drops games that are saved and haven't been used in a while
+    private void evictIdle() {
+        long cutoff = System.currentTimeMillis() - EVICT_AFTER_MILLIS;
+        games.forEach((gameID, entry) -> {
+            synchronized (entry) {
+                if (!entry.dirty && entry.lastUsed < cutoff) {
+                    entry.evicted = true;
+                    games.remove(gameID, entry);
+                }
+            }
+        });
+    }
+
+    //runs the action on the game's entry, loading the game from the database first if it isn't in memory
+    private <T> T withEntry(int gameID, EntryAction<T> action) throws DataAccessException {
+        while (true) {
+            Entry entry = games.get(gameID);
+            if (entry == null) {
+                long seen;
+                synchronized (flushLock) {
+                    seen = invalidations;
+                }
+                Entry loaded = new Entry(database.getGame(gameID));
+                synchronized (flushLock) {
+                    if (invalidations != seen) {
+                        //the game may have been deleted or joined after it was read, so read it again
+                        continue;
+                    }
+                    entry = games.putIfAbsent(gameID, loaded);
+                }
+                if (entry == null) {
+                    entry = loaded;
+                }
+            }
+            synchronized (entry) {
+                if (!entry.evicted) {
+                    entry.lastUsed = System.currentTimeMillis();
+                    return action.apply(entry);
+                }
+            }
+        }
+    }
+}
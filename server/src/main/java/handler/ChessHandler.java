@@ -1,13 +1,22 @@
 package handler;
 
 import endpoints.ResponseException;
+import model.GameData;
 import org.eclipse.jetty.websocket.api.annotations.WebSocket;
 import service.*;
 import endpoints.*;
 
 @WebSocket
 public class ChessHandler {
-    private final ChessService chessService = new ChessService();
+    private final ChessService chessService;
+
+    public ChessHandler() {
+        this(new ChessService());
+    }
+
+    public ChessHandler(ChessService chessService) {
+        this.chessService = chessService;
+    }
 
     public RegisterResult register(RegisterRequest request) throws ResponseException {
         return chessService.register(request);
@@ -33,6 +42,10 @@ public class ChessHandler {
         return chessService.joinGame(request);
     }
 
+    public GameData getGame(String authToken, int gameID) throws ResponseException {
+        return chessService.getGame(authToken, gameID);
+    }
+
     public ClearResult clear(ClearRequest request) {
         return chessService.clear(request);
     }
@@ -1,15 +1,35 @@
 package server;
 
 import com.google.gson.Gson;
+import dataaccess.CachedAuthDAO;
+import dataaccess.SQLDataAccess;
+import dataaccess.WriteBehindGameDAO;
 import handler.ChessHandler;
 import endpoints.ResponseException;
 import server.websocket.WebSocketHandler;
+import service.AnalysisService;
+import service.ChessService;
 import spark.*;
 import endpoints.*;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 public class Server {
-    private final ChessHandler chessHandler = new ChessHandler();
-    private final WebSocketHandler webSocketHandler = new WebSocketHandler();
+    private static final long ANALYSIS_GRACE_MILLIS = 1_000;
+
+    private final SQLDataAccess database = new SQLDataAccess();
+    //games being played are kept in memory, shared by HTTP and the websocket so they agree on who's seated
+    private final WriteBehindGameDAO games = new WriteBehindGameDAO(database);
+    //every request checks its auth token, so the ones in use are remembered
+    private final CachedAuthDAO auths = new CachedAuthDAO(database);
+    private final ChessHandler chessHandler = new ChessHandler(new ChessService(database, games, auths));
+    private final AnalysisService analysisService = new AnalysisService();
+    private final WebSocketHandler webSocketHandler = new WebSocketHandler(analysisService, auths, games);
 
     public int run(int desiredPort) {
         Spark.port(desiredPort);
@@ -25,6 +45,7 @@ public class Server {
         Spark.get("/game", this::listGames);
         Spark.post("/game", this::createGame);
         Spark.put("/game", this::joinGame);
+        Spark.get("/game/:gameID/analysis", this::analyzeGame);
         Spark.delete("/db", this::clear);
         Spark.exception(ResponseException.class, this::exceptionHandler);
 
@@ -58,7 +79,17 @@ public class Server {
 
     private Object listGames(Request request, Response response) throws ResponseException {
         String authToken = request.headers("authorization");
-        ListGamesRequest listGamesRequest = new ListGamesRequest(authToken);
+        Integer after;
+        Integer limit;
+        try {
+            after = request.queryParams("after") == null ? null : Integer.parseInt(request.queryParams("after"));
+            limit = request.queryParams("limit") == null ? null : Integer.parseInt(request.queryParams("limit"));
+        } catch (NumberFormatException e) {
+            throw new ResponseException(400, "Error: bad request");
+        }
+        ListGamesRequest listGamesRequest = new ListGamesRequest(authToken, after, limit,
+                Boolean.parseBoolean(request.queryParams("openSeats")), Boolean.parseBoolean(request.queryParams("mine")),
+                Boolean.parseBoolean(request.queryParams("inProgress")));
         ListGamesResult listGamesResult = chessHandler.listGames(listGamesRequest);
         return new Gson().toJson(listGamesResult);
     }
@@ -66,7 +97,7 @@ public class Server {
     private Object createGame(Request request, Response response) throws ResponseException {
         String authToken = request.headers("authorization");
         CreateGameRequest temp = new Gson().fromJson(request.body(), CreateGameRequest.class);
-        CreateGameRequest createGameRequest = new CreateGameRequest(authToken, temp.gameName());
+        CreateGameRequest createGameRequest = new CreateGameRequest(authToken, temp.gameName(), temp.botColor(), temp.botLevel());
         CreateGameResult createGameResult = chessHandler.createGame(createGameRequest);
         return new Gson().toJson(createGameResult);
     }
@@ -74,18 +105,73 @@ public class Server {
     private Object joinGame(Request request, Response response) throws ResponseException {
         String authToken = request.headers("authorization");
         JoinGameRequest temp = new Gson().fromJson(request.body(), JoinGameRequest.class);
-        JoinGameRequest joinGameRequest = new JoinGameRequest(authToken, temp.playerColor(), temp.gameID());
+        JoinGameRequest joinGameRequest = new JoinGameRequest(authToken, temp.playerColor(), temp.gameID(), temp.botLevel());
         JoinGameResult joinGameResult = chessHandler.joinGame(joinGameRequest);
         return new Gson().toJson(joinGameResult);
     }
 
+    //streams the analysis as it deepens, one AnalysisMessage per line, until it's done or the game changes
+    private Object analyzeGame(Request request, Response response) throws ResponseException, IOException {
+        String authToken = request.headers("authorization");
+        int gameID;
+        long timeMillis;
+        try {
+            gameID = Integer.parseInt(request.params("gameID"));
+            timeMillis = request.queryParams("time") == null
+                    ? AnalysisService.MAX_REQUEST_TIME_MILLIS : Long.parseLong(request.queryParams("time"));
+        } catch (NumberFormatException e) {
+            throw new ResponseException(400, "Error: bad request");
+        }
+        //this thread waits for the whole analysis, so it can't be long
+        if (timeMillis < 1 || timeMillis > AnalysisService.MAX_REQUEST_TIME_MILLIS) {
+            throw new ResponseException(400, "Error: bad request");
+        }
+        var game = chessHandler.getGame(authToken, gameID).game();
+
+        response.type("application/x-ndjson");
+        OutputStream out = response.raw().getOutputStream();
+        //set once this request stops waiting, so a late update isn't written to a finished response
+        var done = new AtomicBoolean();
+        var analysis = analysisService.start(gameID, game, timeMillis, update -> {
+            synchronized (done) {
+                if (done.get()) {
+                    throw new IllegalStateException("the request has finished");
+                }
+                try {
+                    out.write((new Gson().toJson(update) + "\n").getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                } catch (IOException e) {
+                    //the client hung up
+                    throw new UncheckedIOException(e);
+                }
+            }
+        });
+        try {
+            //the search runs on the analysis service's threads; give it a little longer than its limit to report
+            if (!analysis.await(timeMillis + ANALYSIS_GRACE_MILLIS, TimeUnit.MILLISECONDS)) {
+                analysis.cancel();
+            }
+        } catch (InterruptedException e) {
+            analysis.cancel();
+            Thread.currentThread().interrupt();
+        }
+        synchronized (done) {
+            done.set(true);
+        }
+        return "";
+    }
+
     private Object clear(Request request, Response response) throws ResponseException {
         ClearResult clearResult = chessHandler.clear(new ClearRequest());
         return new Gson().toJson(clearResult);
     }
 
     public void stop() {
+        webSocketHandler.stop();
+        analysisService.stop();
         Spark.stop();
         Spark.awaitStop();
+        //save the moves made since the last flush, now that no more can come in
+        games.close();
     }
 }
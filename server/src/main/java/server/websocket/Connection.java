@@ -14,6 +14,8 @@ public class Connection {
     }
 
     public void send(String msg) throws IOException {
-        session.getRemote().sendString(msg);
+        synchronized (session) {
+            session.getRemote().sendString(msg);
+        }
     }
 }
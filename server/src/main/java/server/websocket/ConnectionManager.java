@@ -28,6 +28,10 @@ public class ConnectionManager {
 
     public void remove(int gameID, String participant) {
         var gameConnections = connections.get(gameID);
+        //the game's last connection may already be gone
+        if (gameConnections == null) {
+            return;
+        }
         gameConnections.removeIf(c -> c.participant.equals(participant));
         if (gameConnections.isEmpty()) {
             connections.remove(gameID);
@@ -37,7 +41,7 @@ public class ConnectionManager {
     public void broadcast(int gameID, String excludeParticipant, ServerMessage notification) throws IOException {
         var removeList = new ArrayList<Connection>();
         var gameConnections = connections.get(gameID);
-        if (gameConnections.isEmpty()) {
+        if (gameConnections == null || gameConnections.isEmpty()) {
             return;
         }
         for (var c : gameConnections) {
@@ -57,6 +61,9 @@ public class ConnectionManager {
     }
 
     public void send(Session session, ServerMessage notification) throws IOException {
-        session.getRemote().sendString(new Gson().toJson(notification));
+        //bots and analyses send from their own threads, and a session can only send one message at a time
+        synchronized (session) {
+            session.getRemote().sendString(new Gson().toJson(notification));
+        }
     }
 }
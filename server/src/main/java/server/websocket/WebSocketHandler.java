@@ -1,24 +1,55 @@
 package server.websocket;
 
 import chess.ChessGame;
+import chess.ChessMove;
+import chess.GameStatus;
 import chess.InvalidMoveException;
 import com.google.gson.Gson;
-import dataaccess.SQLDataAccess;
+import dataaccess.AuthDAO;
+import dataaccess.WriteBehindGameDAO;
 import endpoints.ResponseException;
 import model.AuthData;
 import model.GameData;
 import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.annotations.OnWebSocketClose;
 import org.eclipse.jetty.websocket.api.annotations.OnWebSocketMessage;
 import org.eclipse.jetty.websocket.api.annotations.WebSocket;
+import service.AnalysisService;
+import service.BotPlayer;
 import websocket.commands.*;
 import websocket.messages.*;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Set;
+import java.util.concurrent.*;
 
 @WebSocket
 public class WebSocketHandler {
+    //bots search on their own few low priority threads, never on Jetty's, so however many bot games
+    //are going, players' messages are still handled right away. Searches wait in a bounded queue, and
+    //if that fills up they're retried a little later instead of piling up.
+    private static final int BOT_THREADS = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    private static final int BOT_QUEUE_SIZE = 256;
+    private static final long BOT_RETRY_MILLIS = 500;
+
     private final ConnectionManager connections = new ConnectionManager();
-    private final SQLDataAccess database = new SQLDataAccess();
+    private final AuthDAO auths;
+    private final WriteBehindGameDAO games;
+    private final ThreadPoolExecutor botPool = new ThreadPoolExecutor(BOT_THREADS, BOT_THREADS,
+            0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(BOT_QUEUE_SIZE), botThreads("bot-search"));
+    private final ScheduledExecutorService botRetries = Executors.newSingleThreadScheduledExecutor(botThreads("bot-retry"));
+    //games with a bot move waiting or being searched for, so each game only has one at a time
+    private final Set<Integer> botTurns = ConcurrentHashMap.newKeySet();
+    private final AnalysisService analysisService;
+    //each session's running analysis, so analyzing again or disconnecting can cancel it
+    private final ConcurrentHashMap<Session, AnalysisService.Analysis> analyses = new ConcurrentHashMap<>();
+
+    public WebSocketHandler(AnalysisService analysisService, AuthDAO auths, WriteBehindGameDAO games) {
+        this.analysisService = analysisService;
+        this.auths = auths;
+        this.games = games;
+    }
 
     @OnWebSocketMessage
     public void onMessage(Session session, String message) throws ResponseException, IOException {
@@ -28,9 +59,15 @@ public class WebSocketHandler {
             case MAKE_MOVE -> makeMove(session, new Gson().fromJson(message, MakeMoveCommand.class));
             case LEAVE -> leave(session, new Gson().fromJson(message, LeaveCommand.class));
             case RESIGN -> resign(session, new Gson().fromJson(message, ResignCommand.class));
+            case ANALYZE -> analyze(session, new Gson().fromJson(message, AnalyzeCommand.class));
         }
     }
 
+    @OnWebSocketClose
+    public void onClose(Session session, int statusCode, String reason) {
+        cancelAnalysis(session);
+    }
+
     private void connect(Session session, ConnectCommand command) throws ResponseException, IOException {
         int gameID = command.getGameID();
         String participant;
@@ -43,7 +80,7 @@ public class WebSocketHandler {
 
             //notify loadGame
             verifyGameID(gameID);
-            var game = database.getGame(gameID);
+            var game = games.getGame(gameID);
             connections.send(session, new LoadGameMessage(game));
 
             //notify others of joining the game
@@ -54,6 +91,9 @@ public class WebSocketHandler {
             var message = String.format("%s joined the game as %s", participant, teamColor);
             var notification = new NotificationMessage(message);
             connections.broadcast(gameID, participant, notification);
+
+            //a bot might have been waiting for someone to show up
+            scheduleBotMove(gameID, game);
         } catch (Exception e) {
             connections.send(session, new ErrorMessage(e.getMessage()));
         }
@@ -62,49 +102,140 @@ public class WebSocketHandler {
     private void makeMove(Session session, MakeMoveCommand command) throws ResponseException, IOException {
         int gameID = command.getGameID();
 
-        String participant;
         try {
             //verify user
             verifyGameID(command.getGameID());
-            var game = database.getGame(gameID);
-            String team = game.game().getTeamTurn() == ChessGame.TeamColor.WHITE ? "WHITE" : "BLACK";
-            participant = verifyUser(command);
-            verifyTeam(gameID, participant, team);
+            var game = games.getGame(gameID);
+            String participant = verifyUser(command);
+            playMove(game, participant, command.getMove());
+        } catch (Exception e) {
+            connections.send(session, new ErrorMessage(e.getMessage()));
+        }
+    }
 
-            //make the move
-            game.game().makeMove(command.getMove());
-            database.updateGame(gameID, game);
+    //makes a player's (or bot's) move and tells everyone in the game about it
+    private void playMove(GameData game, String participant, ChessMove move) throws Exception {
+        int gameID = game.gameID();
+        String team = game.game().getTeamTurn() == ChessGame.TeamColor.WHITE ? "WHITE" : "BLACK";
+        verifyTeam(gameID, participant, team);
 
-            //notify participants:
-            // load game
-            connections.broadcast(gameID, null, new LoadGameMessage(game));
+        //make the move, and add it to the game's moves
+        int ply = game.game().getPly();
+        int packed = game.game().getBoard().encodeMove(move);
+        game.game().makeMove(move);
+        games.addMove(gameID, ply, packed, game.game());
+        analysisService.positionChanged(gameID);
 
-            // notify of move
-            var message = String.format("%s made move %s", participant, command.getMove().toString());
-            var notification = new NotificationMessage(message);
-            connections.broadcast(gameID, participant, notification);
+        //notify participants:
+        // load game
+        connections.broadcast(gameID, null, new LoadGameMessage(game));
 
-            // notify of check, checkmate, or stalemate
-            ChessGame.TeamColor opponent = team.equals("WHITE") ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
-            NotificationMessage checkNotification = null;
-            if (game.game().isInCheck(opponent)) {
-                if (game.game().isInCheckmate(opponent)) {
-                    checkNotification = new NotificationMessage("Checkmate!");
-                } else {
-                    checkNotification = new NotificationMessage("Check!");
-                }
+        // notify of move
+        var message = String.format("%s made move %s", participant, move.toString());
+        var notification = new NotificationMessage(message);
+        connections.broadcast(gameID, participant, notification);
+
+        // notify of check, checkmate, or stalemate (the status was already worked out by makeMove)
+        GameStatus status = game.game().getStatus();
+        NotificationMessage checkNotification = null;
+        if (status.isCheckmate()) {
+            checkNotification = new NotificationMessage("Checkmate!");
+        } else if (status.isInCheck()) {
+            checkNotification = new NotificationMessage("Check!");
+        } else if (status.isStalemate()) {
+            checkNotification = new NotificationMessage("Stalemate!");
+        }
+        if (checkNotification != null) {
+            connections.broadcast(gameID, null, checkNotification);
+        }
+
+        //a bot claims any draw it can, so a game against a bot can't go on forever
+        if (!game.game().getGameOver() && !status.getDrawReasons().isEmpty() && hasBot(game)) {
+            game.game().setGameOver();
+            games.updateGame(gameID, game.game());
+            String reason = status.getDrawReasons().iterator().next().name().toLowerCase().replace('_', ' ');
+            connections.broadcast(gameID, null, new NotificationMessage("Draw by " + reason + "!"));
+        }
+
+        scheduleBotMove(gameID, game);
+    }
+
+    //starts a search for the bot's move if it's a bot's turn
+    private void scheduleBotMove(int gameID, GameData game) {
+        if (game.game().getGameOver() || botToMove(game) == null || !botTurns.add(gameID)) {
+            return;
+        }
+        submitBotMove(gameID);
+    }
+
+    private void submitBotMove(int gameID) {
+        try {
+            botPool.execute(() -> playBotMove(gameID));
+        } catch (RejectedExecutionException e) {
+            if (!botPool.isShutdown()) {
+                botRetries.schedule(() -> submitBotMove(gameID), BOT_RETRY_MILLIS, TimeUnit.MILLISECONDS);
             }
-            if (game.game().isInStalemate(opponent)) {
-                checkNotification = new NotificationMessage("Stalemate!");
+        }
+    }
+
+    private void playBotMove(int gameID) {
+        try {
+            GameData game;
+            BotPlayer bot;
+            ChessMove move;
+            try {
+                game = games.getGame(gameID);
+                bot = botToMove(game);
+                if (bot == null || game.game().getGameOver()) {
+                    return;
+                }
+                move = bot.chooseMove(game.game());
+            } finally {
+                botTurns.remove(gameID);
             }
-            if (checkNotification != null) {
-                connections.broadcast(gameID, null, checkNotification);
+            //the game can change during the search, if someone resigns or leaves
+            GameData current = games.getGame(gameID);
+            if (move == null || current.game().getZobristKey() != game.game().getZobristKey()
+                    || current.game().getGameOver() || !bot.equals(botToMove(current))) {
+                return;
             }
+            playMove(current, bot.username(), move);
         } catch (Exception e) {
-            connections.send(session, new ErrorMessage(e.getMessage()));
+            try {
+                connections.broadcast(gameID, null, new ErrorMessage("Error: the bot couldn't move: " + e.getMessage()));
+            } catch (IOException ignored) {
+                //nobody left to tell
+            }
         }
     }
 
+    //the bot whose turn it is, or null if it's a person's turn
+    private static BotPlayer botToMove(GameData game) {
+        boolean whiteToMove = game.game().getTeamTurn() == ChessGame.TeamColor.WHITE;
+        return BotPlayer.fromUsername(whiteToMove ? game.whiteUsername() : game.blackUsername());
+    }
+
+    private static boolean hasBot(GameData game) {
+        return BotPlayer.fromUsername(game.whiteUsername()) != null || BotPlayer.fromUsername(game.blackUsername()) != null;
+    }
+
+    private static ThreadFactory botThreads(String name) {
+        return task -> {
+            Thread thread = new Thread(task, name);
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        };
+    }
+
+    /**
+     * Stops the bots' threads
+     */
+    public void stop() {
+        botRetries.shutdownNow();
+        botPool.shutdownNow();
+    }
+
     private void leave(Session session, LeaveCommand command) throws ResponseException, IOException {
         int gameID = command.getGameID();
 
@@ -112,11 +243,11 @@ public class WebSocketHandler {
             String participant = verifyUser(command);
 
             //remove player from the game
-            GameData gameData = database.getGame(gameID);
+            GameData gameData = games.getGame(gameID);
             String newWhite = participant.equals(gameData.whiteUsername()) ? null : gameData.whiteUsername();
             String newBlack = participant.equals(gameData.blackUsername()) ? null : gameData.blackUsername();
             GameData newGameData = new GameData(gameID, newWhite, newBlack, gameData.gameName(), gameData.game());
-            database.updateGame(gameID, newGameData);
+            games.updateGame(gameID, newGameData);
 
             //notify participants
             var message = String.format("%s left the game", participant);
@@ -125,6 +256,7 @@ public class WebSocketHandler {
 
             //end connection
             connections.remove(gameID, participant);
+            cancelAnalysis(session);
         } catch (Exception e) {
             connections.send(session, new ErrorMessage(e.getMessage()));
         }
@@ -138,10 +270,10 @@ public class WebSocketHandler {
             verifyTeam(gameID, participant, "PLAYER");
 
             //mark game as ended
-            ChessGame game = database.getGame(gameID).game();
+            ChessGame game = games.getGame(gameID).game();
             if (!game.getGameOver()) {
                 game.setGameOver();
-                database.updateGame(gameID, game);
+                games.updateGame(gameID, game);
             } else {
                 throw new InvalidMoveException("Error: Invalid Move");
             }
@@ -155,11 +287,41 @@ public class WebSocketHandler {
         }
     }
 
+    private void analyze(Session session, AnalyzeCommand command) throws IOException {
+        int gameID = command.getGameID();
+
+        try {
+            verifyUser(command);
+            verifyGameID(gameID);
+            ChessGame game = games.getGame(gameID).game();
+
+            //only one analysis per session: a new one replaces the old
+            cancelAnalysis(session);
+            var analysis = analysisService.start(gameID, game, command.getTimeMillis(), update -> {
+                try {
+                    connections.send(session, update);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            analyses.put(session, analysis);
+        } catch (Exception e) {
+            connections.send(session, new ErrorMessage(e.getMessage()));
+        }
+    }
+
+    private void cancelAnalysis(Session session) {
+        var analysis = analyses.remove(session);
+        if (analysis != null) {
+            analysis.cancel();
+        }
+    }
+
     private String verifyUser(UserGameCommand command) throws ResponseException {
         String username;
         try {
             //verify authToken
-            AuthData authData = database.getAuth(command.getAuthToken());
+            AuthData authData = auths.getAuth(command.getAuthToken());
             username = authData.username();
         } catch (ResponseException e) {
             throw e;
@@ -173,7 +335,7 @@ public class WebSocketHandler {
         try {
             //verify that the participant is the correct player
             if (assertTeam != null) {
-                GameData gameData = database.getGame(gameID);
+                GameData gameData = games.getGame(gameID);
                 boolean isWhite = username.equals(gameData.whiteUsername());
                 boolean isBlack = username.equals(gameData.blackUsername());
 
@@ -196,7 +358,7 @@ public class WebSocketHandler {
 
     public void verifyGameID(int gameID) throws ResponseException {
         try {
-            database.getGame(gameID);
+            games.getGame(gameID);
         } catch (Exception e) {
             throw new ResponseException(400, "Error: unauthorized");
         }
@@ -204,7 +366,7 @@ public class WebSocketHandler {
 
     private String getTeamColor(String username, int gameID) {
         try {
-            GameData game = database.getGame(gameID);
+            GameData game = games.getGame(gameID);
             if (username.equals(game.whiteUsername())) {
                 return "WHITE";
             }
@@ -0,0 +1,179 @@
+package service;
+
+import chess.ChessGame;
+import chess.engine.Search;
+import chess.engine.SearchLimits;
+import chess.engine.TranspositionTable;
+import endpoints.ResponseException;
+import websocket.messages.AnalysisMessage;
+
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * Runs engine analyses of games' positions for players and observers, on the server's own low
+ * priority threads. Only a few analyses can run at once, so they can't crowd out everything else the
+ * server is doing. An analysis is cancelled when a move is made in its game, or by whoever started it.
+ */
+public class AnalysisService {
+    public static final int MAX_ANALYSES = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    public static final long DEFAULT_TIME_MILLIS = 5_000;
+    public static final long MAX_TIME_MILLIS = 30_000;
+    //an HTTP request holds one of the web server's threads while it waits, so it gets much less time
+    public static final long MAX_REQUEST_TIME_MILLIS = 3_000;
+    private static final int TABLE_MB = 16;
+
+    private final Semaphore slots = new Semaphore(MAX_ANALYSES);
+    //never has more than MAX_ANALYSES tasks, since each one holds a slot
+    private final ExecutorService pool = Executors.newCachedThreadPool(task -> {
+        Thread thread = new Thread(task, "analysis");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+    //the analyses running for each game
+    private final ConcurrentHashMap<Integer, Set<Analysis>> running = new ConcurrentHashMap<>();
+
+    /**
+     * Starts analyzing a game's current position
+     *
+     * @param gameID the game being analyzed
+     * @param game the game (it isn't changed)
+     * @param timeMillis how long to analyze for, or null for DEFAULT_TIME_MILLIS
+     * @param updates called on the analysis's thread with each depth's result, then the final result; if
+     *                it throws, the analysis is cancelled
+     * @return the running analysis
+     * @throws ResponseException if the time is out of range, or too many analyses are already running
+     */
+    public Analysis start(int gameID, ChessGame game, Long timeMillis, Consumer<AnalysisMessage> updates)
+            throws ResponseException {
+        long time = timeMillis == null ? DEFAULT_TIME_MILLIS : timeMillis;
+        if (time < 1 || time > MAX_TIME_MILLIS) {
+            throw new ResponseException(400, "Error: bad request");
+        }
+        if (!slots.tryAcquire()) {
+            throw new ResponseException(503, "Error: too many analyses running, try again later");
+        }
+        Analysis analysis = new Analysis(gameID, new ChessGame(game), SearchLimits.time(time), updates);
+        running.compute(gameID, (id, analyses) -> {
+            Set<Analysis> updated = analyses == null ? ConcurrentHashMap.newKeySet() : analyses;
+            updated.add(analysis);
+            return updated;
+        });
+        try {
+            pool.execute(analysis::run);
+        } catch (RejectedExecutionException e) {
+            analysis.finish();
+            throw new ResponseException(503, "Error: the server is shutting down");
+        }
+        return analysis;
+    }
+
+    /**
+     * Cancels every analysis of a game, since the position it was analyzing is gone
+     */
+    public void positionChanged(int gameID) {
+        Set<Analysis> analyses = running.get(gameID);
+        if (analyses != null) {
+            analyses.forEach(Analysis::cancel);
+        }
+    }
+
+    public void stop() {
+        running.values().forEach(analyses -> analyses.forEach(Analysis::cancel));
+        pool.shutdownNow();
+    }
+
+    /**
+     * One running analysis
+     */
+    public final class Analysis {
+        private final int gameID;
+        private final ChessGame game;
+        private final SearchLimits limits;
+        private final Consumer<AnalysisMessage> updates;
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private volatile boolean cancelled;
+        //only set while the analysis runs, so a finished analysis doesn't hold on to its table
+        private volatile Search search;
+
+        private Analysis(int gameID, ChessGame game, SearchLimits limits, Consumer<AnalysisMessage> updates) {
+            this.gameID = gameID;
+            this.game = game;
+            this.limits = limits;
+            this.updates = updates;
+        }
+
+        /**
+         * Stops the analysis without sending any more updates
+         */
+        public void cancel() {
+            cancelled = true;
+            Search running = search;
+            if (running != null) {
+                running.stop();
+            }
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * Waits for the analysis to finish or be cancelled
+         */
+        public void await() throws InterruptedException {
+            finished.await();
+        }
+
+        /**
+         * Waits for the analysis to finish or be cancelled, for at most the given time
+         *
+         * @return whether it finished in time
+         */
+        public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+            return finished.await(timeout, unit);
+        }
+
+        private void run() {
+            try {
+                Search engine = new Search(new TranspositionTable(TABLE_MB));
+                search = engine;
+                ChessGame.TeamColor team = game.getTeamTurn();
+                var result = engine.search(game, limits, depthResult -> {
+                    //a cancel that came in before the search started can't have stopped it
+                    if (cancelled) {
+                        engine.stop();
+                    } else {
+                        send(new AnalysisMessage(gameID, depthResult, team, false));
+                    }
+                });
+                send(new AnalysisMessage(gameID, result, team, true));
+            } finally {
+                search = null;
+                finish();
+            }
+        }
+
+        private void send(AnalysisMessage message) {
+            if (cancelled) {
+                return;
+            }
+            try {
+                updates.accept(message);
+            } catch (RuntimeException e) {
+                cancel();
+            }
+        }
+
+        private void finish() {
+            running.computeIfPresent(gameID, (id, analyses) -> {
+                analyses.remove(this);
+                return analyses.isEmpty() ? null : analyses;
+            });
+            slots.release();
+            finished.countDown();
+        }
+    }
+}
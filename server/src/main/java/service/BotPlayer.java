@@ -0,0 +1,73 @@
+package service;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.engine.Search;
+import chess.engine.SearchLimits;
+import chess.engine.TranspositionTable;
+import endpoints.ResponseException;
+
+/**
+ * A computer opponent sitting in one of a game's seats. Bots don't have accounts: the seat holds a
+ * username that no user can register, and that says how strong the bot is, so a game with a bot is
+ * stored like any other.
+ *
+ * @param level how strong the bot is, from MIN_LEVEL to MAX_LEVEL: how many moves deep it searches,
+ *              with a quarter second per level to do it in
+ */
+public record BotPlayer(int level) {
+    public static final int MIN_LEVEL = 1;
+    public static final int MAX_LEVEL = 10;
+
+    private static final String USERNAME_PREFIX = "Bot (level ";
+    private static final long MILLIS_PER_LEVEL = 250;
+    private static final int TABLE_MB = 8;
+    //one search for each thread bots move on, so its tables are reused from move to move
+    private static final ThreadLocal<Search> SEARCH =
+            ThreadLocal.withInitial(() -> new Search(new TranspositionTable(TABLE_MB)));
+
+    public BotPlayer {
+        if (level < MIN_LEVEL || level > MAX_LEVEL) {
+            throw new ResponseException(400, "Error: bad request");
+        }
+    }
+
+    /**
+     * @return the bot in the seat with the given username, or null if the seat doesn't hold a bot
+     */
+    public static BotPlayer fromUsername(String username) {
+        if (!isReserved(username) || !username.endsWith(")")) {
+            return null;
+        }
+        try {
+            return new BotPlayer(Integer.parseInt(username.substring(USERNAME_PREFIX.length(), username.length() - 1)));
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return true if users can't register the username, because it's how bots are named
+     */
+    public static boolean isReserved(String username) {
+        return username != null && username.startsWith(USERNAME_PREFIX);
+    }
+
+    public String username() {
+        return USERNAME_PREFIX + level + ")";
+    }
+
+    public SearchLimits limits() {
+        return new SearchLimits(level, level * MILLIS_PER_LEVEL, 0);
+    }
+
+    /**
+     * Searches for the bot's move. This takes up to a few seconds, so it shouldn't be called on a
+     * thread that has anything else to do.
+     *
+     * @return the move to play, or null if the team to move has no legal moves
+     */
+    public ChessMove chooseMove(ChessGame game) {
+        return SEARCH.get().search(game, limits()).bestMove();
+    }
+}
@@ -5,23 +5,40 @@ import dataaccess.*;
 import endpoints.ResponseException;
 import model.AuthData;
 import model.GameData;
+import model.GameSummary;
 import model.UserData;
 import org.mindrot.jbcrypt.BCrypt;
 import endpoints.*;
 
+import java.util.List;
 import java.util.UUID;
 
 public class ChessService {
+    //how many games are listed when the request doesn't say, and the most it can ask for
+    static final int DEFAULT_PAGE_SIZE = 50;
+    static final int MAX_PAGE_SIZE = 500;
+
     SQLDataAccess database;
+    //games and auth tokens can go through stores in front of the database, which are also what's used by the websocket
+    GameDAO games;
+    AuthDAO auths;
 
     public ChessService() {
         this.database = new SQLDataAccess();
+        this.games = database;
+        this.auths = database;
         id = 1;
     }
 
     public ChessService(SQLDataAccess database) {
+        this(database, database, database);
+    }
+
+    public ChessService(SQLDataAccess database, GameDAO games, AuthDAO auths) {
         this.database = database;
-        id = database.listGames().size() + 1;
+        this.games = games;
+        this.auths = auths;
+        id = database.lastGameID() + 1;
     }
 
     private int id;
@@ -37,6 +54,10 @@ public class ChessService {
     public RegisterResult register(RegisterRequest request) throws ResponseException {
         //if registerRequest is missing data, throw an exception
         sanitizeData(request.username(), request.password(), request.email());
+        //bots' usernames are never free
+        if (BotPlayer.isReserved(request.username())) {
+            throw new ResponseException(403, "Error: already taken");
+        }
         try {
             UserData userData = database.getUser(request.username());
             if (!request.username().equals(userData.username())) {
@@ -50,7 +71,7 @@ public class ChessService {
 
             String authToken = generateToken();
             AuthData authData = new AuthData(authToken, request.username());
-            database.createAuth(authData);
+            auths.createAuth(authData);
 
             return new RegisterResult(request.username(), authToken);
         }
@@ -74,7 +95,7 @@ public class ChessService {
         }
 
         String authToken = generateToken();
-        database.createAuth(new AuthData(authToken, request.username()));
+        auths.createAuth(new AuthData(authToken, request.username()));
         return new LoginResult(request.username(), authToken);
     }
 
@@ -85,7 +106,7 @@ public class ChessService {
         //log out the user
         try {
             checkForAuthData(request.authToken());
-            database.deleteAuth(request.authToken());
+            auths.deleteAuth(request.authToken());
         } catch (DataAccessException e) {
             throw new ResponseException(401, "Error: unauthorized");
         }
@@ -98,9 +119,23 @@ public class ChessService {
         sanitizeData(request.authToken());
 
         //check if user is logged in
-        checkForAuthData(request.authToken());
+        AuthData authData = checkForAuthData(request.authToken());
 
-        return new ListGamesResult(database.listGames());
+        int after = request.after() == null ? 0 : request.after();
+        int limit = request.limit() == null ? DEFAULT_PAGE_SIZE : request.limit();
+        if (after < 0 || limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new ResponseException(400, "Error: bad request");
+        }
+
+        //ask for one more than the page holds to find out if there's another page after it
+        List<GameSummary> summaries = games.listGameSummaries(after, limit + 1,
+                request.mine() ? authData.username() : null, request.openSeats(), request.inProgress());
+        Integer next = null;
+        if (summaries.size() > limit) {
+            summaries = summaries.subList(0, limit);
+            next = summaries.getLast().gameID();
+        }
+        return new ListGamesResult(summaries, next);
     }
 
     public CreateGameResult createGame(CreateGameRequest request) throws ResponseException {
@@ -110,9 +145,21 @@ public class ChessService {
         //check if logged in
         checkForAuthData(request.authToken());
 
+        //seat the bot, if there is one
+        String white = null;
+        String black = null;
+        if (request.botColor() != null) {
+            String bot = botUsername(request.botLevel());
+            switch (request.botColor()) {
+                case "WHITE" -> white = bot;
+                case "BLACK" -> black = bot;
+                default -> throw new ResponseException(400, "Error: bad request");
+            }
+        }
+
         //create the game
-        GameData gameData = new GameData(generateGameID(), null, null, request.gameName(), new ChessGame());
-        database.createGame(gameData);
+        GameData gameData = new GameData(generateGameID(), white, black, request.gameName(), new ChessGame());
+        games.createGame(gameData);
 
         return new CreateGameResult(gameData.gameID());
     }
@@ -124,30 +171,58 @@ public class ChessService {
         //check if logged in
         AuthData authData = checkForAuthData(request.authToken());
 
-        //check if game exists
-        GameData gameData = checkForGameData(request.gameID());
-
-        //join the game
-        GameData updatedGameData = updateGame(request.playerColor(), gameData, authData);
+        //figure out which color is wanted
+        //(I promise this isn't racist)
+        ChessGame.TeamColor team = switch (request.playerColor()) {
+            case "WHITE" -> ChessGame.TeamColor.WHITE;
+            case "BLACK" -> ChessGame.TeamColor.BLACK;
+            default -> throw new ResponseException(400, "Error: bad request");
+        };
+
+        //join the game, or put a bot in the seat, if the seat's free. A bot can only be seated across from
+        //whoever asks for it, so nobody can start a game between two bots.
+        String username = authData.username();
+        if (request.botLevel() != null) {
+            GameData gameData = checkForGameData(request.gameID());
+            String opponent = team == ChessGame.TeamColor.WHITE ? gameData.blackUsername() : gameData.whiteUsername();
+            if (!username.equals(opponent)) {
+                throw new ResponseException(403, "Error: a bot can only be seated against yourself");
+            }
+            username = botUsername(request.botLevel());
+        }
         try {
-            database.deleteGame(gameData.gameID());
-            database.createGame(updatedGameData);
+            if (!games.claimSeat(request.gameID(), team, username)) {
+                throw new ResponseException(403, "Error: already taken");
+            }
         } catch (DataAccessException e) {
-            throw new ResponseException(401, "Error: unauthorized");
+            throw new ResponseException(400, "Error: bad request");
         }
 
         return new JoinGameResult();
     }
 
+    /**
+     * @return the game, if the user is logged in and the game exists
+     */
+    public GameData getGame(String authToken, int gameID) throws ResponseException {
+        sanitizeData(authToken);
+        checkForAuthData(authToken);
+        return checkForGameData(gameID);
+    }
+
     public ClearResult clear(ClearRequest request) {
-        database.clear();
+        //each store in front of the database drops what it's holding and clears the database behind it
+        games.clear();
+        if (auths != games) {
+            auths.clear();
+        }
         return new ClearResult();
     }
 
     private AuthData checkForAuthData(String authToken) throws ResponseException {
         AuthData authData;
         try {
-            authData = database.getAuth(authToken);
+            authData = auths.getAuth(authToken);
         } catch (DataAccessException e) {
             throw new ResponseException(401, "Error: unauthorized");
         }
@@ -157,13 +232,20 @@ public class ChessService {
     private GameData checkForGameData(int gameID) throws ResponseException {
         GameData gameData;
         try {
-            gameData = database.getGame(gameID);
+            gameData = games.getGame(gameID);
         } catch (DataAccessException e) {
             throw new ResponseException(400, "Error: bad request");
         }
         return gameData;
     }
 
+    private String botUsername(Integer level) throws ResponseException {
+        if (level == null) {
+            throw new ResponseException(400, "Error: bad request");
+        }
+        return new BotPlayer(level).username();
+    }
+
     private void sanitizeData(String... recordElements) throws ResponseException {
         for (String e: recordElements) {
             if (e == null || e.isEmpty()) {
@@ -171,29 +253,4 @@ public class ChessService {
             }
         }
     }
-
-    private GameData updateGame(String playerColor, GameData gameData, AuthData authData) throws ResponseException {
-        //figure out which color is wanted
-        //(I promise this isn't racist)
-        if (!(playerColor.equals("WHITE") || playerColor.equals("BLACK"))) {
-            throw new ResponseException(400, "Error: bad request");
-        }
-        boolean isWhite = playerColor.equals("WHITE");
-
-        //check if the color is already taken
-        if (isWhite && gameData.whiteUsername() != null && !gameData.whiteUsername().equals(authData.username())) {
-            throw new ResponseException(403, "Error: already taken");
-        } else if (!isWhite && gameData.blackUsername() != null && !gameData.blackUsername().equals(authData.username())) {
-            throw new ResponseException(403, "Error: already taken");
-        }
-
-        //update the gameData
-        GameData updatedGameData;
-        if (isWhite) {
-            updatedGameData = new GameData(gameData.gameID(), authData.username(), gameData.blackUsername(), gameData.gameName(), gameData.game());
-        } else {
-            updatedGameData = new GameData(gameData.gameID(), gameData.whiteUsername(), authData.username(), gameData.gameName(), gameData.game());
-        }
-        return updatedGameData;
-    }
 }
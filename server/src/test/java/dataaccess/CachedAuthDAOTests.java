@@ -0,0 +1,81 @@
+package dataaccess;
+
+import model.AuthData;
+import org.junit.jupiter.api.*;
+
+public class CachedAuthDAOTests {
+    private MemoryAuthDAO memory;
+
+    @BeforeEach
+    public void setUp() {
+        memory = new MemoryAuthDAO();
+        for (int i = 0; i < 3; ++i) {
+            memory.createAuth(new AuthData("token" + i, "user" + i));
+        }
+    }
+
+    @Test
+    @DisplayName("Remembers Tokens")
+    public void remembers() throws DataAccessException {
+        CachedAuthDAO cache = new CachedAuthDAO(memory);
+        Assertions.assertEquals("user0", cache.getAuth("token0").username());
+        //found in memory, even with the token gone from behind it
+        memory.authDatabase.clear();
+        Assertions.assertEquals("user0", cache.getAuth("token0").username());
+        Assertions.assertEquals(new CachedAuthDAO.Metrics(1, 1, 1), cache.getMetrics());
+    }
+
+    @Test
+    @DisplayName("Doesn't Remember Bad Tokens")
+    public void badToken() {
+        CachedAuthDAO cache = new CachedAuthDAO(memory);
+        Assertions.assertThrows(DataAccessException.class, () -> cache.getAuth("wrongToken"));
+        Assertions.assertThrows(DataAccessException.class, () -> cache.getAuth("wrongToken"));
+        Assertions.assertEquals(new CachedAuthDAO.Metrics(0, 2, 0), cache.getMetrics());
+    }
+
+    @Test
+    @DisplayName("Logout Forgets Token")
+    public void logout() throws DataAccessException {
+        CachedAuthDAO cache = new CachedAuthDAO(memory);
+        cache.getAuth("token0");
+        cache.deleteAuth("token0");
+        Assertions.assertThrows(DataAccessException.class, () -> cache.getAuth("token0"));
+        Assertions.assertEquals("user1", cache.getAuth("token1").username());
+    }
+
+    @Test
+    @DisplayName("Clear Forgets Tokens")
+    public void clear() throws DataAccessException {
+        CachedAuthDAO cache = new CachedAuthDAO(memory);
+        cache.getAuth("token0");
+        cache.clear();
+        Assertions.assertThrows(DataAccessException.class, () -> cache.getAuth("token0"));
+        Assertions.assertEquals(0, cache.getMetrics().size());
+    }
+
+    @Test
+    @DisplayName("Drops Least Recently Used")
+    public void leastRecentlyUsed() throws DataAccessException {
+        CachedAuthDAO cache = new CachedAuthDAO(memory, 2, CachedAuthDAO.DEFAULT_TTL_MILLIS);
+        cache.getAuth("token0");
+        cache.getAuth("token1");
+        cache.getAuth("token0");
+        cache.getAuth("token2");
+        memory.authDatabase.clear();
+        //token1 was used least recently, so it made room for token2
+        Assertions.assertDoesNotThrow(() -> cache.getAuth("token0"));
+        Assertions.assertDoesNotThrow(() -> cache.getAuth("token2"));
+        Assertions.assertThrows(DataAccessException.class, () -> cache.getAuth("token1"));
+    }
+
+    @Test
+    @DisplayName("Forgets Tokens After TTL")
+    public void timeToLive() throws DataAccessException {
+        CachedAuthDAO cache = new CachedAuthDAO(memory, 10, 0);
+        cache.getAuth("token0");
+        memory.authDatabase.clear();
+        Assertions.assertThrows(DataAccessException.class, () -> cache.getAuth("token0"));
+        Assertions.assertEquals(0, cache.getMetrics().hits());
+    }
+}
@@ -0,0 +1,148 @@
+package dataaccess;
+
+import org.junit.jupiter.api.*;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+public class ConnectionPoolTests {
+    private final List<FakeConnection> opened = new ArrayList<>();
+
+    @Test
+    @DisplayName("Reuses Returned Connections")
+    public void reuses() throws SQLException {
+        ConnectionPool pool = new ConnectionPool(this::open, 0, 2, 1000);
+        Connection first = pool.getConnection();
+        first.close();
+        Connection second = pool.getConnection();
+        Assertions.assertEquals(1, opened.size());
+        Assertions.assertTrue(first.isClosed());
+        Assertions.assertFalse(second.isClosed());
+        Assertions.assertFalse(opened.getFirst().closed);
+        Assertions.assertThrows(SQLException.class, () -> first.setAutoCommit(false));
+    }
+
+    @Test
+    @DisplayName("Fill Opens Minimum")
+    public void fill() throws SQLException {
+        ConnectionPool pool = new ConnectionPool(this::open, 3, 5, 1000);
+        pool.fill();
+        Assertions.assertEquals(3, opened.size());
+        Assertions.assertEquals(3, pool.getMetrics().idle());
+        pool.getConnection();
+        Assertions.assertEquals(3, opened.size());
+        Assertions.assertEquals(1, pool.getMetrics().active());
+        Assertions.assertEquals(2, pool.getMetrics().idle());
+    }
+
+    @Test
+    @DisplayName("Waits For A Returned Connection")
+    public void waits() throws Exception {
+        ConnectionPool pool = new ConnectionPool(this::open, 0, 1, 5000);
+        Connection held = pool.getConnection();
+        var waiter = CompletableFuture.supplyAsync(() -> {
+            try {
+                return pool.getConnection();
+            } catch (SQLException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        while (pool.getMetrics().waiting() == 0) {
+            Thread.onSpinWait();
+        }
+        Assertions.assertFalse(waiter.isDone());
+        held.close();
+        Assertions.assertFalse(waiter.get(5, TimeUnit.SECONDS).isClosed());
+        Assertions.assertEquals(1, opened.size());
+        Assertions.assertEquals(2, pool.getMetrics().borrows());
+        Assertions.assertTrue(pool.getMetrics().maxWaitMillis() > 0);
+    }
+
+    @Test
+    @DisplayName("Times Out When Full")
+    public void timesOut() throws SQLException {
+        ConnectionPool pool = new ConnectionPool(this::open, 0, 2, 50);
+        pool.getConnection();
+        pool.getConnection();
+        Assertions.assertThrows(SQLTransientConnectionException.class, pool::getConnection);
+        Assertions.assertEquals(1, pool.getMetrics().timeouts());
+        Assertions.assertEquals(2, pool.getMetrics().active());
+    }
+
+    @Test
+    @DisplayName("Discards Broken Connections")
+    public void discardsBroken() throws SQLException {
+        ConnectionPool pool = new ConnectionPool(this::open, 0, 1, 1000);
+        Connection conn = pool.getConnection();
+        opened.getFirst().failWith = "08S01";
+        Assertions.assertThrows(SQLException.class, conn::commit);
+        conn.close();
+        Assertions.assertTrue(opened.getFirst().closed);
+        Assertions.assertEquals(0, pool.getMetrics().idle());
+        pool.getConnection();
+        Assertions.assertEquals(2, opened.size());
+    }
+
+    @Test
+    @DisplayName("Rolls Back Open Transactions")
+    public void rollsBack() throws SQLException {
+        ConnectionPool pool = new ConnectionPool(this::open, 0, 1, 1000);
+        Connection conn = pool.getConnection();
+        conn.setAutoCommit(false);
+        conn.close();
+        Assertions.assertTrue(opened.getFirst().rolledBack);
+        Assertions.assertTrue(pool.getConnection().getAutoCommit());
+    }
+
+    @Test
+    @DisplayName("Bad Sizes")
+    public void badSizes() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new ConnectionPool(this::open, 3, 2, 1000));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new ConnectionPool(this::open, 0, 0, 1000));
+    }
+
+    private synchronized Connection open() {
+        var fake = new FakeConnection();
+        opened.add(fake);
+        return fake.connection;
+    }
+
+    //just enough of a connection for the pool to manage
+    private static class FakeConnection {
+        boolean closed;
+        boolean autoCommit = true;
+        boolean rolledBack;
+        String failWith;
+        final Connection connection = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "close" -> {
+                        closed = true;
+                        yield null;
+                    }
+                    case "isClosed" -> closed;
+                    case "isValid" -> !closed;
+                    case "getAutoCommit" -> autoCommit;
+                    case "setAutoCommit" -> {
+                        autoCommit = (boolean) args[0];
+                        yield null;
+                    }
+                    case "rollback" -> {
+                        rolledBack = true;
+                        yield null;
+                    }
+                    case "commit" -> {
+                        if (failWith != null) {
+                            throw new SQLException("connection lost", failWith);
+                        }
+                        yield null;
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
@@ -9,12 +9,23 @@ import com.google.gson.GsonBuilder;
 import endpoints.CreateGameRequest;
 import endpoints.LogoutRequest;
 import endpoints.RegisterRequest;
+import endpoints.ResponseException;
 import model.AuthData;
 import model.GameData;
+import model.GameSummary;
 import model.UserData;
 import org.junit.jupiter.api.*;
 import service.*;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
 public class DaoTests {
     public static SQLDataAccess database = new SQLDataAccess();
@@ -132,6 +143,36 @@ public class DaoTests {
         Assertions.assertDoesNotThrow(() -> database.listGames());
     }
 
+    //list game summaries
+    @Test
+    @DisplayName("List Game Summaries")
+    public void listGameSummaries() throws Exception {
+        ChessGame finished = new ChessGame();
+        finished.setGameOver();
+        database.createGame(new GameData(existingGameID + 1, existingUsername, null, "second", new ChessGame()));
+        database.createGame(new GameData(existingGameID + 2, "white", existingUsername, "third", finished));
+
+        Assertions.assertEquals(List.of(existingGameID, existingGameID + 1, existingGameID + 2),
+                gameIDs(database.listGameSummaries(0, 10, null, false, false)));
+        Assertions.assertEquals(List.of(existingGameID + 1), gameIDs(database.listGameSummaries(existingGameID, 1, null, false, false)));
+        Assertions.assertEquals(List.of(existingGameID + 1, existingGameID + 2),
+                gameIDs(database.listGameSummaries(0, 10, existingUsername, false, false)));
+        Assertions.assertEquals(List.of(existingGameID, existingGameID + 1), gameIDs(database.listGameSummaries(0, 10, null, true, false)));
+        Assertions.assertEquals(List.of(existingGameID, existingGameID + 1), gameIDs(database.listGameSummaries(0, 10, null, false, true)));
+        Assertions.assertTrue(database.listGameSummaries(existingGameID + 1, 10, null, false, false).getFirst().gameOver());
+    }
+
+    @Test
+    @DisplayName("List Game Summaries Past The End")
+    public void badListGameSummaries() {
+        Assertions.assertTrue(database.listGameSummaries(existingGameID, 10, null, false, false).isEmpty());
+        Assertions.assertTrue(database.listGameSummaries(0, 10, "wrongUsername", false, false).isEmpty());
+    }
+
+    private static List<Integer> gameIDs(List<GameSummary> games) {
+        return games.stream().map(GameSummary::gameID).toList();
+    }
+
     //create game
     @Test
     @DisplayName("Create Game")
@@ -146,6 +187,48 @@ public class DaoTests {
         Assertions.assertThrows(Exception.class, () -> existingService.createGame(new CreateGameRequest(existingAuthToken, existingGameName)));
     }
 
+    //claim seat
+    @Test
+    @DisplayName("Claim Seat")
+    public void claimSeat() throws Exception {
+        Assertions.assertTrue(database.claimSeat(existingGameID, ChessGame.TeamColor.WHITE, existingUsername));
+        Assertions.assertTrue(database.claimSeat(existingGameID, ChessGame.TeamColor.WHITE, existingUsername));
+        Assertions.assertTrue(database.claimSeat(existingGameID, ChessGame.TeamColor.BLACK, "otherUsername"));
+        GameData gameData = database.getGame(existingGameID);
+        Assertions.assertEquals(existingUsername, gameData.whiteUsername());
+        Assertions.assertEquals("otherUsername", gameData.blackUsername());
+    }
+
+    @Test
+    @DisplayName("Claim Taken Seat")
+    public void badClaimSeat() throws Exception {
+        database.claimSeat(existingGameID, ChessGame.TeamColor.WHITE, existingUsername);
+        Assertions.assertFalse(database.claimSeat(existingGameID, ChessGame.TeamColor.WHITE, "otherUsername"));
+        Assertions.assertEquals(existingUsername, database.getGame(existingGameID).whiteUsername());
+        Assertions.assertThrows(DataAccessException.class,
+                () -> database.claimSeat(existingGameID + 1, ChessGame.TeamColor.WHITE, existingUsername));
+    }
+
+    @Test
+    @DisplayName("Claim Seat At Once")
+    public void claimSeatAtOnce() throws Exception {
+        //everyone asks for the same seat at the same time, and only one of them gets it
+        int users = 8;
+        var tasks = new ArrayList<Callable<Boolean>>();
+        for (int i = 0; i < users; ++i) {
+            String username = "user" + i;
+            tasks.add(() -> database.claimSeat(existingGameID, ChessGame.TeamColor.BLACK, username));
+        }
+        int claimed = 0;
+        try (var pool = Executors.newFixedThreadPool(users)) {
+            for (Future<Boolean> result : pool.invokeAll(tasks)) {
+                claimed += result.get() ? 1 : 0;
+            }
+        }
+        Assertions.assertEquals(1, claimed);
+        Assertions.assertNotNull(database.getGame(existingGameID).blackUsername());
+    }
+
     //delete game
     @Test
     @DisplayName("Delete Game")
@@ -178,6 +261,161 @@ public class DaoTests {
         Assertions.assertThrows(Exception.class, () -> database.updateGame(existingGameID + 1, updatedGame));
     }
 
+    //add move
+    @Test
+    @DisplayName("Add Moves")
+    public void addMoves() throws Exception {
+        //enough moves to pass a snapshot, with some after it to replay: the knights go out and back
+        ChessGame game = new ChessGame();
+        String[] moves = {"b1c3", "b8c6", "c3b1", "c6b8"};
+        for (int i = 0; i < SQLDataAccess.SNAPSHOT_INTERVAL + 3; ++i) {
+            String text = moves[i % moves.length];
+            ChessMove move = new ChessMove(new ChessPosition(text.charAt(1) - '0', text.charAt(0) - 'a' + 1),
+                    new ChessPosition(text.charAt(3) - '0', text.charAt(2) - 'a' + 1), null);
+            int ply = game.getPly();
+            int packed = game.getBoard().encodeMove(move);
+            game.makeMove(move);
+            database.addMove(existingGameID, ply, packed, game);
+        }
+        ChessGame stored = database.getGame(existingGameID).game();
+        Assertions.assertEquals(game.toFen(), stored.toFen());
+        Assertions.assertArrayEquals(game.getPreviousPositions(), stored.getPreviousPositions());
+        Assertions.assertEquals(game.toFen(), database.listGames().iterator().next().game().toFen());
+    }
+
+    @Test
+    @DisplayName("Add Move Twice")
+    public void badAddMove() throws Exception {
+        ChessGame game = new ChessGame();
+        ChessMove move = new ChessMove(new ChessPosition(2, 1), new ChessPosition(3, 1), null);
+        int packed = game.getBoard().encodeMove(move);
+        game.makeMove(move);
+        database.addMove(existingGameID, 0, packed, game);
+        Assertions.assertThrows(DataAccessException.class, () -> database.addMove(existingGameID, 0, packed, game));
+    }
+
+    //write-behind store
+    @Test
+    @DisplayName("Write Behind Moves")
+    public void writeBehindMoves() throws Exception {
+        WriteBehindGameDAO games = new WriteBehindGameDAO(database);
+        try {
+            ChessGame game = games.getGame(existingGameID).game();
+            ChessMove move = new ChessMove(new ChessPosition(2, 5), new ChessPosition(4, 5), null);
+            int packed = game.getBoard().encodeMove(move);
+            game.makeMove(move);
+            games.addMove(existingGameID, 0, packed, game);
+
+            //the store has the move right away, and the database once it's flushed
+            Assertions.assertEquals(game.toFen(), games.getGame(existingGameID).game().toFen());
+            games.flush();
+            Assertions.assertEquals(game.toFen(), database.getGame(existingGameID).game().toFen());
+            Assertions.assertThrows(DataAccessException.class, () -> games.addMove(existingGameID, 0, packed, game));
+        } finally {
+            games.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Write Behind Saves Finished Games")
+    public void writeBehindGameOver() throws Exception {
+        WriteBehindGameDAO games = new WriteBehindGameDAO(database);
+        try {
+            ChessGame game = games.getGame(existingGameID).game();
+            game.setGameOver();
+            games.updateGame(existingGameID, game);
+            //saved without waiting for a flush
+            Assertions.assertTrue(database.getGame(existingGameID).game().getGameOver());
+            Assertions.assertThrows(DataAccessException.class, () -> games.getGame(existingGameID + 1));
+        } finally {
+            games.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Write Behind Finished Game Save Fails")
+    public void writeBehindGameOverSaveFails() throws Exception {
+        var failing = new AtomicBoolean(true);
+        SQLDataAccess flakyDatabase = new SQLDataAccess() {
+            @Override
+            void saveGames(List<WriteBehindGameDAO.DirtyGame> games) {
+                if (failing.get()) {
+                    throw new ResponseException(500, "Error: the database is down");
+                }
+                super.saveGames(games);
+            }
+        };
+        WriteBehindGameDAO games = new WriteBehindGameDAO(flakyDatabase);
+        try {
+            ChessGame game = games.getGame(existingGameID).game();
+            game.setGameOver();
+            //the game still ends, and is saved once the database is back
+            Assertions.assertDoesNotThrow(() -> games.updateGame(existingGameID, game));
+            Assertions.assertTrue(games.getGame(existingGameID).game().getGameOver());
+            failing.set(false);
+            games.flush();
+            Assertions.assertTrue(database.getGame(existingGameID).game().getGameOver());
+        } finally {
+            games.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Write Behind Claim Seat")
+    public void writeBehindClaimSeat() throws Exception {
+        WriteBehindGameDAO games = new WriteBehindGameDAO(database);
+        try {
+            //claimed without the game in memory, then with it
+            Assertions.assertTrue(games.claimSeat(existingGameID, ChessGame.TeamColor.WHITE, existingUsername));
+            Assertions.assertEquals(existingUsername, games.getGame(existingGameID).whiteUsername());
+            Assertions.assertTrue(games.claimSeat(existingGameID, ChessGame.TeamColor.BLACK, "otherUsername"));
+            Assertions.assertEquals("otherUsername", games.getGame(existingGameID).blackUsername());
+            Assertions.assertFalse(games.claimSeat(existingGameID, ChessGame.TeamColor.BLACK, existingUsername));
+            Assertions.assertThrows(DataAccessException.class,
+                    () -> games.claimSeat(existingGameID + 1, ChessGame.TeamColor.WHITE, existingUsername));
+        } finally {
+            games.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Write Behind Delete While Loading")
+    public void writeBehindDeleteWhileLoading() throws Exception {
+        //the first load reads the game, then waits while it's deleted, before putting it in memory
+        var read = new CountDownLatch(1);
+        var deleted = new CountDownLatch(1);
+        var paused = new AtomicBoolean();
+        SQLDataAccess slowDatabase = new SQLDataAccess() {
+            @Override
+            public GameData getGame(int gameID) throws DataAccessException {
+                GameData gameData = super.getGame(gameID);
+                if (paused.compareAndSet(false, true)) {
+                    read.countDown();
+                    try {
+                        deleted.await();
+                    } catch (InterruptedException e) {
+                        throw new DataAccessException("Error: interrupted");
+                    }
+                }
+                return gameData;
+            }
+        };
+        WriteBehindGameDAO games = new WriteBehindGameDAO(slowDatabase);
+        try (var pool = Executors.newSingleThreadExecutor()) {
+            Future<GameData> load = pool.submit(() -> games.getGame(existingGameID));
+            read.await();
+            games.deleteGame(existingGameID);
+            deleted.countDown();
+
+            //the load notices the delete and reads the game again, which isn't there any more
+            var thrown = Assertions.assertThrows(ExecutionException.class, load::get);
+            Assertions.assertInstanceOf(DataAccessException.class, thrown.getCause());
+            Assertions.assertThrows(DataAccessException.class, () -> games.getGame(existingGameID));
+        } finally {
+            games.close();
+        }
+    }
+
     //get user
     @Test
     @DisplayName("Get User")
@@ -0,0 +1,87 @@
+package service;
+
+import chess.ChessGame;
+import endpoints.ResponseException;
+import org.junit.jupiter.api.*;
+import websocket.messages.AnalysisMessage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+public class AnalysisServiceTests {
+    private AnalysisService analysisService;
+
+    @BeforeEach
+    public void setUp() {
+        analysisService = new AnalysisService();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        analysisService.stop();
+    }
+
+    @Test
+    @DisplayName("Streams Deeper Results Then Finishes")
+    public void streamsThenFinishes() throws InterruptedException {
+        List<AnalysisMessage> updates = new CopyOnWriteArrayList<>();
+        analysisService.start(1, new ChessGame(), 300L, updates::add).await();
+
+        Assertions.assertTrue(updates.size() >= 2, updates.size() + " updates");
+        AnalysisMessage last = updates.get(updates.size() - 1);
+        Assertions.assertTrue(last.isDone());
+        Assertions.assertFalse(last.getPrincipalVariation().isEmpty());
+        for (int i = 1; i < updates.size() - 1; ++i) {
+            Assertions.assertFalse(updates.get(i).isDone());
+            Assertions.assertTrue(updates.get(i).getDepth() > updates.get(i - 1).getDepth());
+        }
+    }
+
+    @Test
+    @DisplayName("Move Cancels Analysis")
+    public void moveCancels() throws InterruptedException {
+        List<AnalysisMessage> updates = new CopyOnWriteArrayList<>();
+        var analysis = analysisService.start(1, new ChessGame(), AnalysisService.MAX_TIME_MILLIS, updates::add);
+        analysisService.positionChanged(1);
+        analysis.await();
+
+        Assertions.assertTrue(analysis.isCancelled());
+        Assertions.assertTrue(updates.stream().noneMatch(AnalysisMessage::isDone));
+    }
+
+    @Test
+    @DisplayName("Waiting Gives Up In Time")
+    public void awaitTimesOut() throws InterruptedException {
+        var analysis = analysisService.start(1, new ChessGame(), AnalysisService.MAX_TIME_MILLIS, update -> {});
+        Assertions.assertFalse(analysis.await(50, TimeUnit.MILLISECONDS));
+        analysis.cancel();
+        Assertions.assertTrue(analysis.await(AnalysisService.MAX_REQUEST_TIME_MILLIS, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    @DisplayName("Bad Time Or Too Many Analyses")
+    public void badTimeOrTooMany() throws InterruptedException {
+        ResponseException badTime = Assertions.assertThrows(ResponseException.class,
+                () -> analysisService.start(1, new ChessGame(), AnalysisService.MAX_TIME_MILLIS + 1, update -> {}));
+        Assertions.assertEquals(400, badTime.status());
+
+        List<AnalysisService.Analysis> running = new ArrayList<>();
+        for (int i = 0; i < AnalysisService.MAX_ANALYSES; ++i) {
+            running.add(analysisService.start(1, new ChessGame(), AnalysisService.MAX_TIME_MILLIS, update -> {}));
+        }
+        ResponseException tooMany = Assertions.assertThrows(ResponseException.class,
+                () -> analysisService.start(2, new ChessGame(), null, update -> {}));
+        Assertions.assertEquals(503, tooMany.status());
+
+        //cancelling frees the slots up again
+        analysisService.positionChanged(1);
+        for (var analysis : running) {
+            analysis.await();
+        }
+        var analysis = analysisService.start(2, new ChessGame(), 50L, update -> {});
+        analysis.cancel();
+        analysis.await();
+    }
+}
@@ -0,0 +1,35 @@
+package service;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import endpoints.ResponseException;
+import org.junit.jupiter.api.*;
+
+public class BotPlayerTests {
+
+    @Test
+    @DisplayName("Username Round Trip")
+    public void usernameRoundTrip() {
+        BotPlayer bot = new BotPlayer(4);
+        Assertions.assertEquals(bot, BotPlayer.fromUsername(bot.username()));
+        Assertions.assertTrue(BotPlayer.isReserved(bot.username()));
+        Assertions.assertNull(BotPlayer.fromUsername("myUsername"));
+        Assertions.assertNull(BotPlayer.fromUsername(null));
+    }
+
+    @Test
+    @DisplayName("Level Out Of Range")
+    public void levelOutOfRange() {
+        Assertions.assertThrows(ResponseException.class, () -> new BotPlayer(BotPlayer.MIN_LEVEL - 1));
+        Assertions.assertThrows(ResponseException.class, () -> new BotPlayer(BotPlayer.MAX_LEVEL + 1));
+        Assertions.assertNull(BotPlayer.fromUsername("Bot (level 99)"));
+    }
+
+    @Test
+    @DisplayName("Chooses Legal Move")
+    public void choosesLegalMove() {
+        ChessGame game = new ChessGame();
+        ChessMove move = new BotPlayer(2).chooseMove(game);
+        Assertions.assertTrue(game.validMoves(move.getStartPosition()).contains(move));
+    }
+}
@@ -214,7 +214,66 @@ public class ServiceTests {
         Assertions.assertNotNull(result4, "listGames: did not list 0 games");
     }
 
+    @Test
+    @Order(11)
+    @DisplayName("List Games In Pages")
+    public void listGamesInPages() {
+        String authToken = chessService.register(new RegisterRequest("myUsername", "myPassword", "myEmail@email.com")).authToken();
+        for (int i = 1; i <= 5; ++i) {
+            chessService.createGame(new CreateGameRequest(authToken, "game #" + i));
+        }
+
+        //two pages of two, then the last game
+        Integer after = null;
+        int pages = 0;
+        int games = 0;
+        do {
+            ListGamesResult result = chessService.listGames(new ListGamesRequest(authToken, after, 2, false, false, false));
+            games += result.games().size();
+            after = result.next();
+            ++pages;
+        } while (after != null);
+
+        Assertions.assertEquals(3, pages, "listGames: wrong number of pages");
+        Assertions.assertEquals(5, games, "listGames: games missing or repeated across pages");
+    }
+
+    @Test
+    @Order(11)
+    @DisplayName("List Games Bad Page Size")
+    public void listGamesBadPageSize() {
+        String authToken = chessService.register(new RegisterRequest("myUsername", "myPassword", "myEmail@email.com")).authToken();
+        Assertions.assertThrows(Exception.class,
+                () -> chessService.listGames(new ListGamesRequest(authToken, null, 0, false, false, false)),
+                "listGames: listed an empty page");
+        Assertions.assertThrows(Exception.class,
+                () -> chessService.listGames(new ListGamesRequest(authToken, null, ChessService.MAX_PAGE_SIZE + 1, false, false, false)),
+                "listGames: listed a page that's too big");
+    }
+
     //join games
+    @Test
+    @Order(11)
+    @DisplayName("Join Game With One Bot Only")
+    public void joinGameOneBot() {
+        String authToken = chessService.register(new RegisterRequest("myUsername", "myPassword", "myEmail@email.com")).authToken();
+        String otherToken = chessService.register(new RegisterRequest("otherUsername", "myPassword", "myEmail@email.com")).authToken();
+        int gameID = chessService.createGame(new CreateGameRequest(authToken, "gameName", "WHITE", 1)).gameID();
+
+        //the other seat can only go to a person, since nobody is sitting across from it but a bot
+        Assertions.assertThrows(ResponseException.class,
+                () -> chessService.joinGame(new JoinGameRequest(authToken, "BLACK", gameID, 1)),
+                "joinGame: seated a second bot");
+        Assertions.assertDoesNotThrow(() -> chessService.joinGame(new JoinGameRequest(authToken, "BLACK", gameID)));
+
+        //nobody can seat a bot against someone else
+        int otherGameID = chessService.createGame(new CreateGameRequest(authToken, "otherGame")).gameID();
+        chessService.joinGame(new JoinGameRequest(authToken, "WHITE", otherGameID));
+        Assertions.assertThrows(ResponseException.class,
+                () -> chessService.joinGame(new JoinGameRequest(otherToken, "BLACK", otherGameID, 1)),
+                "joinGame: seated a bot against another user");
+        Assertions.assertDoesNotThrow(() -> chessService.joinGame(new JoinGameRequest(authToken, "BLACK", otherGameID, 1)));
+    }
 
     //clear
     @Test
@@ -0,0 +1,243 @@
+package chess;
+
+/**
+ * Precomputed attack bitboards for every piece, built once when the class is loaded.
+ * <p>
+ * Knights, kings, and pawns attack a fixed set of spaces from each square, so they are plain lookups.
+ * Rooks and bishops are blocked by other pieces, so their attacks are looked up with "magic bitboards":
+ * the pieces that could block a slider are multiplied by a magic number that packs them into a
+ * small index, which picks out the precomputed attacks for that arrangement of blockers.
+ */
+public final class Attacks {
+    private static final long[] KNIGHT = new long[ChessBoard.NUM_SQUARES];
+    private static final long[] KING = new long[ChessBoard.NUM_SQUARES];
+    //indexed by TeamColor.ordinal(), then square
+    private static final long[][] PAWN = new long[2][ChessBoard.NUM_SQUARES];
+
+    //indexed by two squares: the spaces strictly between them, and the whole line through them
+    //(both empty if the squares aren't on the same row, column, or diagonal)
+    private static final long[][] BETWEEN = new long[ChessBoard.NUM_SQUARES][ChessBoard.NUM_SQUARES];
+    private static final long[][] LINE = new long[ChessBoard.NUM_SQUARES][ChessBoard.NUM_SQUARES];
+
+    private static final Magic[] ROOK_MAGICS = new Magic[ChessBoard.NUM_SQUARES];
+    private static final Magic[] BISHOP_MAGICS = new Magic[ChessBoard.NUM_SQUARES];
+
+    //directions and jumps are {rows up, columns right}
+    private static final int[][] KNIGHT_JUMPS = { {1, 2}, {-1, 2}, {1, -2}, {-1, -2}, {2, 1}, {-2, 1}, {2, -1}, {-2, -1} };
+    private static final int[][] KING_STEPS = { {1, -1}, {1, 0}, {1, 1}, {0, -1}, {0, 1}, {-1, -1}, {-1, 0}, {-1, 1} };
+    private static final int[][] ROOK_DIRECTIONS = { {1, 0}, {0, 1}, {-1, 0}, {0, -1} };
+    private static final int[][] BISHOP_DIRECTIONS = { {1, 1}, {1, -1}, {-1, 1}, {-1, -1} };
+
+    //magic numbers for each square, found once by trying random numbers with few bits set until one worked
+    private static final long[] ROOK_MAGIC_NUMBERS = {
+            0x008000908064C000L, 0x0040200040001000L, 0x0180100080A0010AL, 0x8880041000800800L,
+            0x1200100201200804L, 0x0200020004011008L, 0x2180010000800600L, 0x0200005088210204L,
+            0x0000800080204001L, 0x1000804000802001L, 0x8240801000200080L, 0x8611001004200900L,
+            0x008180800C001800L, 0x0100800200800400L, 0x0A02000102000408L, 0x8020802300104280L,
+            0x0080004000402000L, 0xE010104000402000L, 0x0800808010002000L, 0xA280210008100100L,
+            0x0001818014000800L, 0xA002010100080400L, 0x0008040088020130L, 0x0001020004048845L,
+            0x0081826280004004L, 0x2020810900284000L, 0x0200100080802000L, 0x0200080080100080L,
+            0x8083080100100500L, 0x4406000901000400L, 0x0005020080800100L, 0x0090204200008114L,
+            0x0010400094800420L, 0x0900804000802002L, 0x0201001841002000L, 0x4100080080801000L,
+            0x4540040080800800L, 0x0000800400800200L, 0x9281800100808200L, 0x8004048102000854L,
+            0x4420802040008006L, 0x0880500020004002L, 0x0801200241050010L, 0x8400080010008080L,
+            0x0008000500090010L, 0x0082009084020008L, 0x4012000108020004L, 0x9000104D08860004L,
+            0x2004204114800100L, 0x0148802112400300L, 0x0202842000100880L, 0x001B080080900080L,
+            0x001A002008100600L, 0x0004008004020080L, 0x5181000600040300L, 0x0000044401128A00L,
+            0x8044110480002441L, 0x1023012082044112L, 0x00804080200A0012L, 0x000420310A004A42L,
+            0x0023001004020801L, 0x0882001008040102L, 0x000230088118020CL, 0x0000019025040042L
+    };
+    private static final long[] BISHOP_MAGIC_NUMBERS = {
+            0x1010220204082A00L, 0x80E0020202002804L, 0x2008480104200020L, 0x000220920280002DL,
+            0x32040421000B0284L, 0x1002080404000400L, 0x0004160892080040L, 0x2203024206204201L,
+            0x0002404264010200L, 0x1120908408428124L, 0xB100424403002280L, 0x240008060440C288L,
+            0x2040040420490400L, 0x0100620210040022L, 0x0400084104202028L, 0x0010050080908820L,
+            0x0C90A04490824802L, 0x000200A008210130L, 0x0C08001000204010L, 0x0008000186014480L,
+            0x0601044820080021L, 0x0002000101013100L, 0x1400A08108080204L, 0x0250401104485410L,
+            0x4820240810142843L, 0x0009142A20182200L, 0x0848140048440020L, 0x2020120000400440L,
+            0x0108840200802003L, 0x0009070082009492L, 0x020C0C0038424245L, 0xCA44005808210410L,
+            0x8011212000500404L, 0x2028840510101008L, 0x0004042A00041400L, 0x0624020080980080L,
+            0x1820410040840040L, 0x2201004202050100L, 0x402A088A24040224L, 0x0242061040002400L,
+            0x90020202400821A0L, 0x00C9009004E01002L, 0x58C2060202023100L, 0x0000012214040800L,
+            0x0210846810100200L, 0x0004208081010200L, 0x01A4108404442100L, 0x8054082C80280106L,
+            0x0004144904104208L, 0x00324C0A11104000L, 0x1000020231040100L, 0x2080001042020004L,
+            0x0544021020288104L, 0x1103501408083020L, 0x4010451004960002L, 0x003010091C44902CL,
+            0x0102402884202000L, 0x0480804C00841086L, 0x04602C8602210400L, 0x0000004000420200L,
+            0x0040000020442C18L, 0x4483804089094100L, 0x80000B0248020400L, 0x0045010808008680L
+    };
+
+    //the lookup for one square: which pieces matter, how to hash them, and the attacks for each hash
+    private record Magic(long mask, long magic, int shift, long[] attacks) {
+        long attacks(long occupied) {
+            return attacks[(int) (((occupied & mask) * magic) >>> shift)];
+        }
+    }
+
+    static {
+        for (int square = 0; square < ChessBoard.NUM_SQUARES; ++square) {
+            KNIGHT[square] = stepAttacks(square, KNIGHT_JUMPS);
+            KING[square] = stepAttacks(square, KING_STEPS);
+            PAWN[ChessGame.TeamColor.WHITE.ordinal()][square] = stepAttacks(square, new int[][] { {1, -1}, {1, 1} });
+            PAWN[ChessGame.TeamColor.BLACK.ordinal()][square] = stepAttacks(square, new int[][] { {-1, -1}, {-1, 1} });
+        }
+        for (int square = 0; square < ChessBoard.NUM_SQUARES; ++square) {
+            fillLines(square, ROOK_DIRECTIONS);
+            fillLines(square, BISHOP_DIRECTIONS);
+        }
+        for (int square = 0; square < ChessBoard.NUM_SQUARES; ++square) {
+            ROOK_MAGICS[square] = buildMagic(square, ROOK_DIRECTIONS, ROOK_MAGIC_NUMBERS[square]);
+            BISHOP_MAGICS[square] = buildMagic(square, BISHOP_DIRECTIONS, BISHOP_MAGIC_NUMBERS[square]);
+        }
+    }
+
+    private Attacks() {
+    }
+
+    /**
+     * @return the spaces a knight on the given square attacks
+     */
+    public static long knight(int square) {
+        return KNIGHT[square];
+    }
+
+    /**
+     * @return the spaces a king on the given square attacks (not counting castling)
+     */
+    public static long king(int square) {
+        return KING[square];
+    }
+
+    /**
+     * @return the spaces a pawn of the given team on the given square attacks diagonally
+     */
+    public static long pawn(ChessGame.TeamColor team, int square) {
+        return PAWN[team.ordinal()][square];
+    }
+
+    /**
+     * @return the spaces a rook on the given square attacks, stopping at (and including) the first
+     * occupied space in each direction
+     */
+    public static long rook(int square, long occupied) {
+        return ROOK_MAGICS[square].attacks(occupied);
+    }
+
+    /**
+     * @return the spaces a bishop on the given square attacks, stopping at (and including) the first
+     * occupied space in each direction
+     */
+    public static long bishop(int square, long occupied) {
+        return BISHOP_MAGICS[square].attacks(occupied);
+    }
+
+    /**
+     * @return the spaces a queen on the given square attacks
+     */
+    public static long queen(int square, long occupied) {
+        return rook(square, occupied) | bishop(square, occupied);
+    }
+
+    /**
+     * @return the spaces strictly between two squares on the same row, column, or diagonal,
+     * or 0 if they aren't on one
+     */
+    public static long between(int a, int b) {
+        return BETWEEN[a][b];
+    }
+
+    /**
+     * @return every space on the row, column, or diagonal through two squares (from edge to edge),
+     * or 0 if they aren't on one
+     */
+    public static long line(int a, int b) {
+        return LINE[a][b];
+    }
+
+    //walks out from the square in each direction, recording the spaces passed on the way to each square
+    private static void fillLines(int square, int[][] directions) {
+        for (int[] d : directions) {
+            long line = slidingAttacks(square, 0L, new int[][] { d, {-d[0], -d[1]} }) | ChessBoard.bit(square);
+            long passed = 0L;
+            int r = square / 8 + 1 + d[0];
+            int c = square % 8 + 1 + d[1];
+            while (ChessBoard.isInBounds(r, c)) {
+                int other = ChessBoard.toSquare(r, c);
+                BETWEEN[square][other] = passed;
+                LINE[square][other] = line;
+                passed |= ChessBoard.bit(other);
+                r += d[0];
+                c += d[1];
+            }
+        }
+    }
+
+    private static long stepAttacks(int square, int[][] offsets) {
+        int row = square / 8 + 1;
+        int col = square % 8 + 1;
+        long attacks = 0L;
+        for (int[] o : offsets) {
+            if (ChessBoard.isInBounds(row + o[0], col + o[1])) {
+                attacks |= ChessBoard.bit(ChessBoard.toSquare(row + o[0], col + o[1]));
+            }
+        }
+        return attacks;
+    }
+
+    //walks each direction one space at a time, stopping after the first occupied space
+    private static long slidingAttacks(int square, long occupied, int[][] directions) {
+        long attacks = 0L;
+        for (int[] d : directions) {
+            int r = square / 8 + 1 + d[0];
+            int c = square % 8 + 1 + d[1];
+            while (ChessBoard.isInBounds(r, c)) {
+                long mask = ChessBoard.bit(ChessBoard.toSquare(r, c));
+                attacks |= mask;
+                if ((occupied & mask) != 0) {
+                    break;
+                }
+                r += d[0];
+                c += d[1];
+            }
+        }
+        return attacks;
+    }
+
+    //the spaces whose occupancy changes a slider's attacks: every space it can reach except the last
+    //one in each direction, since that space is attacked whether or not something is on it
+    private static long relevantOccupancy(int square, int[][] directions) {
+        long mask = 0L;
+        for (int[] d : directions) {
+            int r = square / 8 + 1 + d[0];
+            int c = square % 8 + 1 + d[1];
+            while (ChessBoard.isInBounds(r + d[0], c + d[1])) {
+                mask |= ChessBoard.bit(ChessBoard.toSquare(r, c));
+                r += d[0];
+                c += d[1];
+            }
+        }
+        return mask;
+    }
+
+    //fills in the attacks for every arrangement of blockers on the relevant spaces
+    private static Magic buildMagic(int square, int[][] directions, long magic) {
+        long mask = relevantOccupancy(square, directions);
+        int shift = 64 - Long.bitCount(mask);
+        long[] attacks = new long[1 << Long.bitCount(mask)];
+        boolean[] filled = new boolean[attacks.length];
+
+        //walk through every subset of the mask
+        long occupancy = 0L;
+        do {
+            int index = (int) ((occupancy * magic) >>> shift);
+            long reference = slidingAttacks(square, occupancy, directions);
+            if (filled[index] && attacks[index] != reference) {
+                throw new IllegalStateException("bad magic number for square " + square);
+            }
+            filled[index] = true;
+            attacks[index] = reference;
+            occupancy = (occupancy - mask) & mask;
+        } while (occupancy != 0);
+
+        return new Magic(mask, magic, shift, attacks);
+    }
+}
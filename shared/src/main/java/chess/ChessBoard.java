@@ -1,7 +1,6 @@
 package chess;
 
 import java.util.Arrays;
-import java.util.Objects;
 
 /**
  * A chessboard that can hold and rearrange chess pieces.
@@ -11,73 +10,287 @@ import java.util.Objects;
  */
 public class ChessBoard {
 
-    ChessPiece[][] board = new ChessPiece[8][8];
+    //squares are numbered 0 (a1) to 63 (h8), going left to right and then bottom to top,
+    //so bit (row-1)*8 + (col-1) of a bitboard stands for the space at (row, col)
+    static final int NUM_SQUARES = 64;
+
+    //b1, a2, and every other space the same color as them
+    private static final long LIGHT_SQUARES = 0x55AA55AA55AA55AAL;
+
+    /** Castling rights bits, see getCastlingRights() */
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+    public static final int ALL_CASTLING = 15;
+
+    /** The game phase with all the starting pieces on the board, see getGamePhase() */
+    public static final int MAX_PHASE = PieceSquareTables.MAX_PHASE;
+
+    //the castling rights that survive a move to or from each square: moving a king or rook,
+    //or capturing a rook, gives up the castles that piece was part of
+    private static final int[] CASTLING_MASK = new int[NUM_SQUARES];
+
+    static {
+        Arrays.fill(CASTLING_MASK, ALL_CASTLING);
+        CASTLING_MASK[toSquare(1, 1)] &= ~WHITE_QUEENSIDE;
+        CASTLING_MASK[toSquare(1, 5)] &= ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLING_MASK[toSquare(1, 8)] &= ~WHITE_KINGSIDE;
+        CASTLING_MASK[toSquare(8, 1)] &= ~BLACK_QUEENSIDE;
+        CASTLING_MASK[toSquare(8, 5)] &= ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        CASTLING_MASK[toSquare(8, 8)] &= ~BLACK_KINGSIDE;
+    }
+
+    //one bitboard for each team and piece type, indexed by ChessPiece.bitboardIndex()
+    long[] pieceBitboards = new long[12];
+    //every space occupied by each team, indexed by TeamColor.ordinal()
+    long[] teamOccupancy = new long[2];
+    //every occupied space
+    long occupied = 0L;
+    //the piece on each square, so looking up a piece doesn't require searching the bitboards
+    ChessPiece[] squares = new ChessPiece[NUM_SQUARES];
+    //moves made in place, most recent last, so they can be taken back
+    private transient MoveUndo[] history = new MoveUndo[16];
+    private transient int historySize = 0;
+    //the position header: which castles are still allowed (see getCastlingRights()), the space a pawn
+    //can move to to capture en passant (or -1), moves since the last capture or pawn move, and the move number
+    int castlingRights = 0;
+    int enPassantSquare = -1;
+    int halfmoveClock = 0;
+    int fullmoveNumber = 1;
+    //Zobrist keys of the pieces and of just the pawns, and the piece-square totals (see
+    //PieceSquareTables), updated as pieces move (boards read back from JSON don't have them,
+    //so they're worked out the first time they're needed)
+    private transient long pieceKey = 0L;
+    private transient long pawnKey = 0L;
+    private transient int midgameScore = 0;
+    private transient int endgameScore = 0;
+    private transient int phase = 0;
+    private transient boolean totalsComputed = false;
 
     public ChessBoard() {
 
     }
 
-    //makes a deep copy
+    //makes a copy
     public ChessBoard(ChessBoard b) {
-        for (int r = 1; r <= 8; ++r) {
-            for (int c = 1; c <= 8; ++c) {
-                board[r-1][c-1] = b.getPiece(new ChessPosition(r, c));
+        pieceBitboards = b.pieceBitboards.clone();
+        teamOccupancy = b.teamOccupancy.clone();
+        occupied = b.occupied;
+        squares = b.squares.clone();
+        castlingRights = b.castlingRights;
+        enPassantSquare = b.enPassantSquare;
+        halfmoveClock = b.halfmoveClock;
+        fullmoveNumber = b.fullmoveNumber;
+        pieceKey = b.pieceKey;
+        pawnKey = b.pawnKey;
+        midgameScore = b.midgameScore;
+        endgameScore = b.endgameScore;
+        phase = b.phase;
+        totalsComputed = b.totalsComputed;
+    }
+
+    /**
+     * Sets up a board from a position in Forsyth-Edwards Notation (FEN), e.g.
+     * "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1". The move counters can be left off.
+     * Boards don't know whose turn it is, so that field is only checked; see ChessGame.fromFen().
+     *
+     * @param fen the position
+     * @return the board
+     * @throws IllegalArgumentException if the FEN is malformed
+     */
+    public static ChessBoard fromFen(String fen) {
+        ChessBoard board = new ChessBoard();
+        Fen.read(fen, board);
+        return board;
+    }
+
+    /**
+     * Writes this board's position in Forsyth-Edwards Notation (see fromFen())
+     *
+     * @param teamToMove whose turn it is, since the board doesn't know
+     * @return the FEN
+     */
+    public String toFen(ChessGame.TeamColor teamToMove) {
+        return Fen.write(this, teamToMove);
+    }
+
+    static int toSquare(int row, int col) {
+        return (row - 1) * 8 + (col - 1);
+    }
+
+    static int toSquare(ChessPosition position) {
+        return toSquare(position.getRow(), position.getColumn());
+    }
+
+    static ChessPosition toPosition(int square) {
+        return ChessPosition.of(square);
+    }
+
+    static boolean isInBounds(int row, int col) {
+        return row >= 1 && row <= 8 && col >= 1 && col <= 8;
+    }
+
+    static long bit(int square) {
+        return 1L << square;
+    }
+
+    /**
+     * Makes a move on this board in place, including any capture, en passant capture,
+     * castling rook move, or promotion. The move is not checked for legality.
+     * The move can be taken back with unmakeMove().
+     *
+     * @param move the move to make
+     */
+    public void makeMove(ChessMove move) {
+        makeMove(encodeMove(move));
+    }
+
+    /**
+     * Packs a move into an int (see Move), working out what kind of move it is from the pieces on this board.
+     * A pawn moving diagonally onto an empty space is capturing en passant, and a king moving two spaces
+     * sideways is castling.
+     *
+     * @param move the move to pack
+     * @return the packed move
+     */
+    public int encodeMove(ChessMove move) {
+        int from = toSquare(move.getStartPosition());
+        int to = toSquare(move.getEndPosition());
+        boolean capture = squares[to] != null;
+        if (move.getPromotionPiece() != null) {
+            return Move.promotion(from, to, move.getPromotionPiece(), capture);
+        }
+        ChessPiece piece = squares[from];
+        int rowDiff = to / 8 - from / 8;
+        int colDiff = to % 8 - from % 8;
+        if (piece != null && piece.getPieceType() == ChessPiece.PieceType.PAWN) {
+            if (colDiff != 0 && !capture) {
+                return Move.of(from, to, Move.EN_PASSANT);
             }
+            if (Math.abs(rowDiff) == 2) {
+                return Move.of(from, to, Move.DOUBLE_PAWN_PUSH);
+            }
+        }
+        if (piece != null && piece.getPieceType() == ChessPiece.PieceType.KING && Math.abs(colDiff) == 2) {
+            return Move.of(from, to, colDiff > 0 ? Move.KING_CASTLE : Move.QUEEN_CASTLE);
         }
+        return Move.of(from, to, capture ? Move.CAPTURE : Move.QUIET);
     }
 
-    public ChessBoard hypothetical(ChessMove move) {
-        ChessBoard hypo = new ChessBoard(this);
-        if (hypo.getPiece(move.initialPos) == null) {
-            return hypo;
+    /**
+     * Makes a packed move (see Move) on this board in place. The move's flags say whether it is an
+     * en passant capture, a castle, or a promotion. The move is not checked for legality.
+     * The move can be taken back with unmakeMove().
+     *
+     * @param move the move to make
+     */
+    public void makeMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int flags = Move.flags(move);
+        ChessPiece piece = squares[from];
+
+        MoveUndo undo = pushUndo();
+        undo.from = from;
+        undo.to = to;
+        undo.movedPiece = piece;
+        undo.captured = squares[to];
+        undo.capturedSquare = to;
+        undo.rookFrom = -1;
+        undo.rookTo = -1;
+        undo.castlingRights = castlingRights;
+        undo.enPassantSquare = enPassantSquare;
+        undo.halfmoveClock = halfmoveClock;
+        undo.fullmoveNumber = fullmoveNumber;
+        if (piece == null) {
+            return;
+        }
+
+        //the pawn captured en passant is beside the starting space, not on the ending space
+        if (flags == Move.EN_PASSANT) {
+            undo.capturedSquare = (from & ~7) | (to & 7);
+            undo.captured = squares[undo.capturedSquare];
+            setSquare(undo.capturedSquare, null);
         }
 
-        //check if the PieceType changes due to promotion
-        ChessPiece oldPiece = hypo.getPiece(move.initialPos);
-        ChessPiece newPiece = new ChessPiece(oldPiece);
-        if (move.getPromotionPiece() != null) {
-            newPiece.setPieceType(move.getPromotionPiece());
-        }
-
-        //if a pawn did a double-move, mark it as having done so
-        if (oldPiece.getPieceType() == ChessPiece.PieceType.PAWN
-                && move.getLength() == 2) {
-            newPiece.setDidDoubleMoveLastTurn(true);
-        }
-
-        //check if a pawn captured en passant
-        if (oldPiece.getPieceType() == ChessPiece.PieceType.PAWN
-                && hypo.getPiece(move.finalPos) == null
-                && move.finalPos.getColumn() != move.initialPos.getColumn()) {
-            ChessPosition enemy = new ChessPosition(move.initialPos.getRow(), move.finalPos.getColumn());
-            hypo.addPiece(enemy, null);
-        }
-
-        //check for castling
-        if (oldPiece.getPieceType() == ChessPiece.PieceType.KING
-                && move.getLength() == 2
-                && !isInCheck(oldPiece.getTeamColor())) {
-            boolean isQueenSide = move.finalPos.getColumn() == 3;
-            ChessPosition rookStart = new ChessPosition(move.initialPos.getRow(), (isQueenSide ? 1 : 8));
-            ChessPosition rookEnd = new ChessPosition(move.finalPos.getRow(), (isQueenSide ? 4 : 6));
-            if (hypo.getPiece(rookStart) != null) {
-                ChessPiece rook = new ChessPiece(hypo.getPiece(rookStart));
-                ChessMove rookMove = new ChessMove(rookStart, rookEnd, null);
-                doMove(hypo, rook, rookMove);
+        //when castling, the rook jumps over the king
+        if (Move.isCastle(move)) {
+            undo.rookFrom = flags == Move.KING_CASTLE ? from + 3 : from - 4;
+            undo.rookTo = flags == Move.KING_CASTLE ? from + 1 : from - 1;
+            ChessPiece rook = squares[undo.rookFrom];
+            if (rook != null) {
+                setSquare(undo.rookFrom, null);
+                setSquare(undo.rookTo, rook);
             }
         }
 
-        doMove(hypo, newPiece, move);
-        return hypo;
+        //a promoted pawn is replaced by the piece it promotes to
+        ChessPiece landing = piece;
+        if (Move.isPromotion(move)) {
+            landing = ChessPiece.of(piece.getTeamColor(), Move.promotionPiece(move));
+        }
+        setSquare(from, null);
+        setSquare(to, landing);
+
+        updateHeader(piece, from, to, flags, undo.captured != null);
     }
 
-    private void doMove(ChessBoard board, ChessPiece piece, ChessMove move) {
+    /**
+     * Takes back the most recent move made with makeMove()
+     */
+    public void unmakeMove() {
+        MoveUndo undo = history[--historySize];
+        ChessPiece piece = undo.movedPiece;
         if (piece == null) {
             return;
         }
-        piece.setHasMoved();
-        board.addPiece(move.finalPos, piece); //add piece to new position
-        board.addPiece(move.initialPos, null); //remove piece from old position
+        setSquare(undo.to, null);
+        setSquare(undo.from, piece);
+        if (undo.captured != null) {
+            setSquare(undo.capturedSquare, undo.captured);
+        }
+        if (undo.rookFrom >= 0 && squares[undo.rookTo] != null) {
+            ChessPiece rook = squares[undo.rookTo];
+            setSquare(undo.rookTo, null);
+            setSquare(undo.rookFrom, rook);
+        }
+        castlingRights = undo.castlingRights;
+        enPassantSquare = undo.enPassantSquare;
+        halfmoveClock = undo.halfmoveClock;
+        fullmoveNumber = undo.fullmoveNumber;
+    }
+
+    private void updateHeader(ChessPiece piece, int from, int to, int flags, boolean capture) {
+        castlingRights &= CASTLING_MASK[from] & CASTLING_MASK[to];
+
+        //a pawn can only be captured en passant right after its double-move, and only by a pawn
+        //beside it (leaving the square out otherwise means the same positions always hash the same)
+        enPassantSquare = -1;
+        if (flags == Move.DOUBLE_PAWN_PUSH) {
+            int behind = (from + to) / 2;
+            long beside = Attacks.pawn(piece.getTeamColor(), behind)
+                    & getBitboard(piece.getTeamColor().opponent(), ChessPiece.PieceType.PAWN);
+            if (beside != 0) {
+                enPassantSquare = behind;
+            }
+        }
+
+        boolean isPawn = piece.getPieceType() == ChessPiece.PieceType.PAWN;
+        halfmoveClock = (isPawn || capture) ? 0 : halfmoveClock + 1;
+        if (piece.getTeamColor() == ChessGame.TeamColor.BLACK) {
+            ++fullmoveNumber;
+        }
+    }
+
+    private MoveUndo pushUndo() {
+        if (historySize == history.length) {
+            history = Arrays.copyOf(history, history.length * 2);
+        }
+        if (history[historySize] == null) {
+            history[historySize] = new MoveUndo();
+        }
+        return history[historySize++];
     }
 
     /**
@@ -87,13 +300,189 @@ public class ChessBoard {
      * @param piece    the piece to add
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
-        if (position.getRow() > 8
-                || position.getRow() < 1
-                || position.getColumn() > 8
-                || position.getColumn() < 1) {
+        if (!isInBounds(position.getRow(), position.getColumn())) {
             return;
         }
-        board[position.getRow()-1][position.getColumn()-1] = piece;
+        int square = toSquare(position);
+        setSquare(square, piece);
+        //replacing a king or rook gives up its castles, and adding one to its starting space allows
+        //them as long as its partner is in place too
+        castlingRights = (castlingRights & CASTLING_MASK[square]) | startingCastlingRights(square);
+        if (enPassantSquare >= 0 && square == enPassantPawn()) {
+            enPassantSquare = -1;
+        }
+    }
+
+    //puts a piece (or nothing) on a square, keeping the bitboards in sync with the squares
+    void setSquare(int square, ChessPiece piece) {
+        removePiece(square);
+        if (piece == null) {
+            return;
+        }
+        long mask = bit(square);
+        pieceBitboards[piece.bitboardIndex()] |= mask;
+        teamOccupancy[piece.getTeamColor().ordinal()] |= mask;
+        occupied |= mask;
+        squares[square] = piece;
+        updateTotals(piece, square, 1);
+    }
+
+    private void removePiece(int square) {
+        ChessPiece old = squares[square];
+        if (old == null) {
+            return;
+        }
+        long mask = ~bit(square);
+        pieceBitboards[old.bitboardIndex()] &= mask;
+        teamOccupancy[old.getTeamColor().ordinal()] &= mask;
+        occupied &= mask;
+        squares[square] = null;
+        updateTotals(old, square, -1);
+    }
+
+    //adds (sign 1) or takes away (sign -1) a piece's part of the keys and piece-square totals
+    private void updateTotals(ChessPiece piece, int square, int sign) {
+        int index = piece.bitboardIndex();
+        long key = Zobrist.piece(index, square);
+        pieceKey ^= key;
+        if (piece.getPieceType() == ChessPiece.PieceType.PAWN) {
+            pawnKey ^= key;
+        }
+        midgameScore += sign * PieceSquareTables.midgame(index, square);
+        endgameScore += sign * PieceSquareTables.endgame(index, square);
+        phase += sign * PieceSquareTables.phase(index);
+    }
+
+    /**
+     * Gets a 64-bit Zobrist key for the pieces on the board, the castling rights, and which pawn (if any)
+     * can be captured en passant. The key is kept up to date as moves are made and unmade, so it can
+     * be used as a cheap cache key for the position. It doesn't include whose turn it is; see
+     * ChessGame.getZobristKey() for that.
+     *
+     * @return the key for this position
+     */
+    public long getZobristKey() {
+        computeTotals();
+        long key = pieceKey ^ Zobrist.castling(castlingRights);
+        return enPassantSquare < 0 ? key : key ^ Zobrist.enPassant(enPassantSquare);
+    }
+
+    /**
+     * Gets a Zobrist key for just the pawns on the board, for caching anything worked out from the
+     * pawn structure alone
+     *
+     * @return the key for the pawns' positions
+     */
+    public long getPawnKey() {
+        computeTotals();
+        return pawnKey;
+    }
+
+    /**
+     * Gets the total value of every piece on the board, counting where each one stands, as it would be in
+     * the middlegame. The total is kept up to date as pieces move, and is positive when white is ahead.
+     *
+     * @return the middlegame total, in centipawns
+     */
+    public int getMidgameScore() {
+        computeTotals();
+        return midgameScore;
+    }
+
+    /**
+     * Gets the same total as getMidgameScore(), but valuing the pieces as they would be in the endgame
+     *
+     * @return the endgame total, in centipawns
+     */
+    public int getEndgameScore() {
+        computeTotals();
+        return endgameScore;
+    }
+
+    /**
+     * Gets how far the game is from the endgame, going by the queens, rooks, bishops and knights left:
+     * MAX_PHASE with all of them on the board (or more, after promotions), down to 0 with none
+     *
+     * @return the game phase
+     */
+    public int getGamePhase() {
+        computeTotals();
+        return phase;
+    }
+
+    //works the keys and totals out from scratch if they haven't been yet
+    private void computeTotals() {
+        if (totalsComputed) {
+            return;
+        }
+        pieceKey = 0L;
+        pawnKey = 0L;
+        midgameScore = 0;
+        endgameScore = 0;
+        phase = 0;
+        for (long pieces = occupied; pieces != 0; pieces &= pieces - 1) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            updateTotals(squares[square], square, 1);
+        }
+        totalsComputed = true;
+    }
+
+    //the castles allowed by kings and rooks on their starting spaces that involve the given square
+    int startingCastlingRights(int square) {
+        int rights = 0;
+        for (int right = WHITE_KINGSIDE; right <= BLACK_QUEENSIDE; right <<= 1) {
+            boolean isWhite = right <= WHITE_QUEENSIDE;
+            ChessGame.TeamColor team = isWhite ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+            int kingSquare = toSquare(isWhite ? 1 : 8, 5);
+            int rookSquare = toSquare(isWhite ? 1 : 8, (right & (WHITE_KINGSIDE | BLACK_KINGSIDE)) != 0 ? 8 : 1);
+            if ((square == kingSquare || square == rookSquare)
+                    && (getBitboard(team, ChessPiece.PieceType.KING) & bit(kingSquare)) != 0
+                    && (getBitboard(team, ChessPiece.PieceType.ROOK) & bit(rookSquare)) != 0) {
+                rights |= right;
+            }
+        }
+        return rights;
+    }
+
+    /**
+     * Gets which castles are still allowed, as far as the kings and rooks having moved is concerned (the
+     * spaces between them being clear and not attacked is checked when generating moves). Each castle is
+     * one bit: WHITE_KINGSIDE, WHITE_QUEENSIDE, BLACK_KINGSIDE, and BLACK_QUEENSIDE.
+     *
+     * @return the castling rights
+     */
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    /**
+     * @return the space a pawn can move to to capture en passant, or null if no pawn can
+     */
+    public ChessPosition getEnPassantPosition() {
+        return enPassantSquare < 0 ? null : toPosition(enPassantSquare);
+    }
+
+    /**
+     * @return the number of moves since the last capture or pawn move, for the fifty move rule
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    /**
+     * @return the move number, starting at 1 and going up after each of black's moves
+     */
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    int getEnPassantSquare() {
+        return enPassantSquare;
+    }
+
+    //the pawn that can be captured en passant is just past the square the capturing pawn moves to
+    private int enPassantPawn() {
+        return enPassantSquare < 32 ? enPassantSquare + 8 : enPassantSquare - 8;
     }
 
     /**
@@ -104,36 +493,71 @@ public class ChessBoard {
      * position
      */
     public ChessPiece getPiece(ChessPosition position) {
-        if (position.getRow() > 8
-                || position.getRow() < 1
-                || position.getColumn() > 8
-                || position.getColumn() < 1) {
+        if (!isInBounds(position.getRow(), position.getColumn())) {
             return null;
         }
-        return board[position.getRow()-1][position.getColumn()-1];
+        return squares[toSquare(position)];
+    }
+
+    /**
+     * Gets the piece on a square numbered like the bitboards (see Move)
+     *
+     * @return Either the piece on the square, or null if it is empty
+     */
+    public ChessPiece getPiece(int square) {
+        return squares[square];
+    }
+
+    boolean isOccupied(int square) {
+        return (occupied & bit(square)) != 0;
+    }
+
+    boolean isOccupiedBy(int square, ChessGame.TeamColor team) {
+        return (teamOccupancy[team.ordinal()] & bit(square)) != 0;
+    }
+
+    /**
+     * @return a bitboard of every space holding the given team's pieces of the given type
+     */
+    public long getBitboard(ChessGame.TeamColor team, ChessPiece.PieceType type) {
+        return pieceBitboards[ChessPiece.bitboardIndex(team, type)];
+    }
+
+    /**
+     * @return a bitboard of every space holding one of the given team's pieces
+     */
+    public long getOccupancy(ChessGame.TeamColor team) {
+        return teamOccupancy[team.ordinal()];
+    }
+
+    /**
+     * @return a bitboard of every occupied space
+     */
+    public long getOccupancy() {
+        return occupied;
     }
 
     private void clearRow(int r) {
-        for(int i = 0; i < 8; ++i) {
-            board[r][i] = null;
+        for(int c = 1; c <= 8; ++c) {
+            setSquare(toSquare(r, c), null);
         }
     }
 
     private void pawnRow(int r, ChessGame.TeamColor t) {
-        for(int i = 0; i < 8; ++i) {
-            board[r][i] = new ChessPiece(t, ChessPiece.PieceType.PAWN);
+        for(int c = 1; c <= 8; ++c) {
+            setSquare(toSquare(r, c), ChessPiece.of(t, ChessPiece.PieceType.PAWN));
         }
     }
 
     private void homeRow(int r, ChessGame.TeamColor t) {
-        board[r][0] = new ChessPiece(t, ChessPiece.PieceType.ROOK);
-        board[r][1] = new ChessPiece(t, ChessPiece.PieceType.KNIGHT);
-        board[r][2] = new ChessPiece(t, ChessPiece.PieceType.BISHOP);
-        board[r][3] = new ChessPiece(t, ChessPiece.PieceType.QUEEN);
-        board[r][4] = new ChessPiece(t, ChessPiece.PieceType.KING);
-        board[r][5] = new ChessPiece(t, ChessPiece.PieceType.BISHOP);
-        board[r][6] = new ChessPiece(t, ChessPiece.PieceType.KNIGHT);
-        board[r][7] = new ChessPiece(t, ChessPiece.PieceType.ROOK);
+        setSquare(toSquare(r, 1), ChessPiece.of(t, ChessPiece.PieceType.ROOK));
+        setSquare(toSquare(r, 2), ChessPiece.of(t, ChessPiece.PieceType.KNIGHT));
+        setSquare(toSquare(r, 3), ChessPiece.of(t, ChessPiece.PieceType.BISHOP));
+        setSquare(toSquare(r, 4), ChessPiece.of(t, ChessPiece.PieceType.QUEEN));
+        setSquare(toSquare(r, 5), ChessPiece.of(t, ChessPiece.PieceType.KING));
+        setSquare(toSquare(r, 6), ChessPiece.of(t, ChessPiece.PieceType.BISHOP));
+        setSquare(toSquare(r, 7), ChessPiece.of(t, ChessPiece.PieceType.KNIGHT));
+        setSquare(toSquare(r, 8), ChessPiece.of(t, ChessPiece.PieceType.ROOK));
     }
 
     /**
@@ -141,39 +565,103 @@ public class ChessBoard {
      * (How the game of chess normally starts)
      */
     public void resetBoard() {
-        for (int row = 0; row < 8; ++row) {
+        for (int row = 1; row <= 8; ++row) {
             switch (row) {
-                case 0 -> homeRow(row, ChessGame.TeamColor.WHITE);
-                case 1 -> pawnRow(row, ChessGame.TeamColor.WHITE);
-                case 6 -> pawnRow(row, ChessGame.TeamColor.BLACK);
-                case 7 -> homeRow(row, ChessGame.TeamColor.BLACK);
+                case 1 -> homeRow(row, ChessGame.TeamColor.WHITE);
+                case 2 -> pawnRow(row, ChessGame.TeamColor.WHITE);
+                case 7 -> pawnRow(row, ChessGame.TeamColor.BLACK);
+                case 8 -> homeRow(row, ChessGame.TeamColor.BLACK);
                 default -> clearRow(row);
             }
         }
+        castlingRights = ALL_CASTLING;
+        enPassantSquare = -1;
+        halfmoveClock = 0;
+        fullmoveNumber = 1;
     }
 
     public boolean isInCheck(ChessGame.TeamColor teamColor) {
-        //go through every space on the board
-        for (int r = 1; r <= 8; ++r) {
-            for (int c = 1; c <= 8; ++c) {
-                //see if the space contains an enemy piece
-                ChessPiece p = this.getPiece(new ChessPosition(r, c));
-                if (p == null || p.getTeamColor() == teamColor) {
-                    continue;
-                }
-                //see if the enemy is putting the king in check
-                var enemyMoves = p.pieceMoves(this, new ChessPosition(r, c));
-                for (ChessMove m : enemyMoves) {
-                    var target = this.getPiece(m.finalPos);
-                    if (target != null
-                            && target.getTeamColor() == teamColor
-                            && target.getPieceType() == ChessPiece.PieceType.KING) {
-                        return true;
-                    }
-                }
-            }
+        long king = getBitboard(teamColor, ChessPiece.PieceType.KING);
+        if (king == 0) {
+            return false;
+        }
+        return isSquareAttacked(Long.numberOfTrailingZeros(king), teamColor.opponent());
+    }
+
+    /**
+     * Determines if any of a team's pieces could capture a piece on the given position
+     *
+     * @param position the position to look at
+     * @param attacker the team that might be attacking it
+     * @return True if the position is attacked by the given team
+     */
+    public boolean isSquareAttacked(ChessPosition position, ChessGame.TeamColor attacker) {
+        return isSquareAttacked(toSquare(position), attacker);
+    }
+
+    //looks up every kind of piece that could attack the square from it, and checks if the attacker has one there
+    boolean isSquareAttacked(int square, ChessGame.TeamColor attacker) {
+        //pawns capture diagonally forward, so look diagonally backward from the attacker's side
+        if ((Attacks.pawn(attacker.opponent(), square) & getBitboard(attacker, ChessPiece.PieceType.PAWN)) != 0
+                || (Attacks.knight(square) & getBitboard(attacker, ChessPiece.PieceType.KNIGHT)) != 0
+                || (Attacks.king(square) & getBitboard(attacker, ChessPiece.PieceType.KING)) != 0) {
+            return true;
+        }
+        long queens = getBitboard(attacker, ChessPiece.PieceType.QUEEN);
+        long straightSliders = queens | getBitboard(attacker, ChessPiece.PieceType.ROOK);
+        long diagonalSliders = queens | getBitboard(attacker, ChessPiece.PieceType.BISHOP);
+        return (Attacks.rook(square, occupied) & straightSliders) != 0
+                || (Attacks.bishop(square, occupied) & diagonalSliders) != 0;
+    }
+
+    /**
+     * Determines if neither team has enough pieces left to ever checkmate: just kings, kings and a single
+     * knight or bishop, or kings and bishops that are all on the same color of space
+     *
+     * @return true if checkmate is impossible
+     */
+    public boolean hasInsufficientMaterial() {
+        long majorsAndPawns = 0L;
+        long knights = 0L;
+        long bishops = 0L;
+        for (ChessGame.TeamColor team : ChessGame.TeamColor.values()) {
+            majorsAndPawns |= getBitboard(team, ChessPiece.PieceType.PAWN) | getBitboard(team, ChessPiece.PieceType.ROOK)
+                    | getBitboard(team, ChessPiece.PieceType.QUEEN);
+            knights |= getBitboard(team, ChessPiece.PieceType.KNIGHT);
+            bishops |= getBitboard(team, ChessPiece.PieceType.BISHOP);
+        }
+        if (majorsAndPawns != 0) {
+            return false;
+        }
+        int minors = Long.bitCount(knights | bishops);
+        return minors <= 1 || (knights == 0 && ((bishops & LIGHT_SQUARES) == 0 || (bishops & ~LIGHT_SQUARES) == 0));
+    }
+
+    //every piece of the attacker's that could capture on the square, with sliders blocked by the given pieces
+    long attackersTo(int square, ChessGame.TeamColor attacker, long occupied) {
+        long queens = getBitboard(attacker, ChessPiece.PieceType.QUEEN);
+        return (Attacks.pawn(attacker.opponent(), square) & getBitboard(attacker, ChessPiece.PieceType.PAWN))
+                | (Attacks.knight(square) & getBitboard(attacker, ChessPiece.PieceType.KNIGHT))
+                | (Attacks.king(square) & getBitboard(attacker, ChessPiece.PieceType.KING))
+                | (Attacks.rook(square, occupied) & (queens | getBitboard(attacker, ChessPiece.PieceType.ROOK)))
+                | (Attacks.bishop(square, occupied) & (queens | getBitboard(attacker, ChessPiece.PieceType.BISHOP)));
+    }
+
+    //every space one of the attacker's pieces could capture on, with sliders blocked by the given pieces
+    long attackedBy(ChessGame.TeamColor attacker, long occupied) {
+        long attacks = 0L;
+        for (long pieces = getOccupancy(attacker); pieces != 0; pieces &= pieces - 1) {
+            int square = Long.numberOfTrailingZeros(pieces);
+            attacks |= switch (squares[square].getPieceType()) {
+                case PAWN -> Attacks.pawn(attacker, square);
+                case KNIGHT -> Attacks.knight(square);
+                case BISHOP -> Attacks.bishop(square, occupied);
+                case ROOK -> Attacks.rook(square, occupied);
+                case QUEEN -> Attacks.queen(square, occupied);
+                case KING -> Attacks.king(square);
+            };
         }
-        return false;
+        return attacks;
     }
 
     @Override
@@ -182,12 +670,14 @@ public class ChessBoard {
             return false;
         }
         ChessBoard that = (ChessBoard) o;
-        return Objects.deepEquals(board, that.board);
+        return Arrays.equals(pieceBitboards, that.pieceBitboards);
     }
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(board);
+        //equals only compares the pieces, so only the pieces can go into the hash
+        computeTotals();
+        return Long.hashCode(pieceKey);
     }
 
     @Override
@@ -195,7 +685,7 @@ public class ChessBoard {
         StringBuilder out = new StringBuilder();
         for (int r = 1; r <= 8; ++r) {
             for (int c = 1; c <= 8; ++c) {
-                ChessPiece p = board[r-1][c-1];
+                ChessPiece p = squares[toSquare(r, c)];
                 out.append("|").append((p == null) ? " " : p.toString());
             }
             out.append("|\n");
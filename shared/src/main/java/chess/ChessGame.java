@@ -1,7 +1,8 @@
 package chess;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.EnumSet;
 
 /**
  * For a class that can manage a chess game, making moves on a board
@@ -11,13 +12,59 @@ import java.util.Collection;
  */
 public class ChessGame {
     TeamColor activeTeam = TeamColor.WHITE;
-    ChessBoard board = new ChessBoard();
+    ChessBoard board;
     boolean gameOver = false;
+    //keys of the positions since the last capture or pawn move (none of the earlier ones can come up again),
+    //for spotting repetitions
+    long[] previousPositions = new long[0];
+    private final transient MoveGenerator generator = new MoveGenerator();
+    //the status of the current position, worked out the first time it's asked for
+    private transient GameStatus status;
 
     public ChessGame() {
+        board = new ChessBoard();
         board.resetBoard();
     }
 
+    //makes a copy, with its own board, that can be changed without affecting the original
+    public ChessGame(ChessGame game) {
+        activeTeam = game.activeTeam;
+        board = new ChessBoard(game.board);
+        gameOver = game.gameOver;
+        previousPositions = game.previousPositions.clone();
+    }
+
+    /**
+     * Sets up a game from a position in Forsyth-Edwards Notation (FEN), e.g.
+     * "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1". The moves that led to the position
+     * aren't known, so repetitions are only counted from here on.
+     *
+     * @param fen the position; the move counters can be left off
+     * @return the game, already over if the position is checkmate or stalemate
+     * @throws IllegalArgumentException if the FEN is malformed
+     */
+    public static ChessGame fromFen(String fen) {
+        ChessBoard board = new ChessBoard();
+        ChessGame game = new ChessGame(board, Fen.read(fen, board));
+        game.gameOver = game.getStatus().isCheckmate() || game.getStatus().isStalemate();
+        return game;
+    }
+
+    //starts a game from a board already set up, with nothing remembered from before it
+    ChessGame(ChessBoard board, TeamColor activeTeam) {
+        this.board = board;
+        this.activeTeam = activeTeam;
+    }
+
+    /**
+     * Writes the current position in Forsyth-Edwards Notation (see fromFen())
+     *
+     * @return the FEN
+     */
+    public String toFen() {
+        return Fen.write(board, activeTeam);
+    }
+
     /**
      * @return Which team's turn it is
      */
@@ -39,7 +86,11 @@ public class ChessGame {
      */
     public enum TeamColor {
         WHITE,
-        BLACK
+        BLACK;
+
+        public TeamColor opponent() {
+            return this == WHITE ? BLACK : WHITE;
+        }
     }
 
     /**
@@ -53,40 +104,32 @@ public class ChessGame {
         if (board.getPiece(startPosition) == null) {
             return null;
         }
-        Collection<ChessMove> validMoves = board.getPiece(startPosition).pieceMoves(board, startPosition);
-        Collection<ChessMove> invalidMoves = new ArrayList<>();
-
-        for (ChessMove m : validMoves) {
-            TeamColor team = board.getPiece(m.initialPos).getTeamColor();
-            ChessBoard hypo = board.hypothetical(m);
-
-            //check if move would put king in check
-            if (hypo.isInCheck(team)) {
-                invalidMoves.add(m);
-            }
-
-            //check for invalid castling
-            if (board.getPiece(m.initialPos).getPieceType() == ChessPiece.PieceType.KING
-                    && m.getLength() == 2) {
-                //look at the in-between space
-                ChessPosition inBetween;
-                if (m.finalPos.getColumn() == 3) {
-                    inBetween = new ChessPosition(m.initialPos.getRow(), 4);
-                }
-                else {
-                    inBetween = new ChessPosition(m.initialPos.getRow(), 6);
-                }
-
-                //if the in-between space is in check, castling is invalid
-                ChessMove inBetweenMove = new ChessMove(m.initialPos, inBetween, null);
-                ChessBoard hypo2 = board.hypothetical(inBetweenMove);
-                if (hypo2.isInCheck(team)) {
-                    invalidMoves.add(m);
+        int square = ChessBoard.toSquare(startPosition);
+        //a single piece never has more than 27 moves
+        MoveList moves = new MoveList(32);
+        if (board.getPiece(startPosition).getTeamColor() == activeTeam) {
+            //the team to move's legal moves are already known
+            MoveList legalMoves = getStatus().legalMoves();
+            for (int i = 0; i < legalMoves.size(); ++i) {
+                if (Move.from(legalMoves.get(i)) == square) {
+                    moves.add(legalMoves.get(i));
                 }
             }
+        } else {
+            generator.generateLegal(board, square, moves);
         }
-        validMoves.removeAll(invalidMoves);
-        return validMoves;
+        return moves.asChessMoves();
+    }
+
+    /**
+     * Fills a list with every valid move for the team whose turn it is, packed into ints (see Move).
+     * The list is cleared first.
+     *
+     * @param moves the list to fill
+     */
+    public void generateMoves(MoveList moves) {
+        moves.clear();
+        generator.generateLegal(board, activeTeam, moves);
     }
 
     /**
@@ -97,31 +140,80 @@ public class ChessGame {
      */
     public void makeMove(ChessMove move) throws InvalidMoveException {
         if (board.getPiece(move.initialPos) == null
-                || validMoves(move.initialPos) == null
                 || getTeamTurn() != board.getPiece(move.initialPos).getTeamColor()
-                || gameOver
-                || !validMoves(move.initialPos).contains(move)) {
+                || gameOver) {
+            throw new InvalidMoveException("Error: invalid move");
+        }
+        int packed = getStatus().legalMoves().find(move);
+        if (packed == Move.NONE) {
             throw new InvalidMoveException("Error: invalid move");
         }
 
-        resetEnPassant(); //reset en passant for allied pieces (the opportunity to get captured has passed)
-        board = board.hypothetical(move); //make the move
+        long previousKey = getZobristKey();
+        board.makeMove(packed); //make the move
+        rememberPosition(previousKey);
         TeamColor opponent = getTeamTurn() == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
         setTeamTurn(opponent); //pass the turn
-        gameOver = isInCheckmate(opponent) || isInStalemate(opponent);
+        status = null;
+        gameOver = getStatus().isCheckmate() || getStatus().isStalemate();
     }
 
-    void resetEnPassant() {
-        for (int r = 1; r <= 8; ++r) {
-            for (int c = 1; c <= 8; ++c) {
-                ChessPiece piece = board.getPiece(new ChessPosition(r, c));
-                if (piece != null
-                        && piece.getPieceType() == ChessPiece.PieceType.PAWN
-                        && piece.getTeamColor() == getTeamTurn()) {
-                    piece.setDidDoubleMoveLastTurn(false);
-                }
+    private void rememberPosition(long key) {
+        if (board.getHalfmoveClock() == 0) {
+            previousPositions = new long[0];
+        } else {
+            previousPositions = Arrays.copyOf(previousPositions, previousPositions.length + 1);
+            previousPositions[previousPositions.length - 1] = key;
+        }
+    }
+
+    /**
+     * Gets the status of the current position for the team whose turn it is: check, legal moves,
+     * checkmate or stalemate, and reasons it could be drawn. The status is only worked out again
+     * when the position changes.
+     *
+     * @return the status of the current position
+     */
+    public GameStatus getStatus() {
+        long key = getZobristKey();
+        if (status == null || status.key != key || status.halfmoveClock != board.getHalfmoveClock()) {
+            status = computeStatus(key);
+        }
+        return status;
+    }
+
+    private GameStatus computeStatus(long key) {
+        MoveList legalMoves = new MoveList();
+        generator.generateLegal(board, activeTeam, legalMoves);
+        boolean inCheck = board.isInCheck(activeTeam);
+
+        EnumSet<GameStatus.DrawReason> drawReasons = EnumSet.noneOf(GameStatus.DrawReason.class);
+        boolean checkmate = inCheck && legalMoves.isEmpty();
+        if (!checkmate) {
+            if (legalMoves.isEmpty()) {
+                drawReasons.add(GameStatus.DrawReason.STALEMATE);
+            }
+            if (board.getHalfmoveClock() >= 100) {
+                drawReasons.add(GameStatus.DrawReason.FIFTY_MOVE_RULE);
+            }
+            if (timesSeen(key) >= 2) {
+                drawReasons.add(GameStatus.DrawReason.THREEFOLD_REPETITION);
+            }
+            if (board.hasInsufficientMaterial()) {
+                drawReasons.add(GameStatus.DrawReason.INSUFFICIENT_MATERIAL);
+            }
+        }
+        return new GameStatus(activeTeam, inCheck, legalMoves, drawReasons, key, board.getHalfmoveClock());
+    }
+
+    private int timesSeen(long key) {
+        int count = 0;
+        for (long previous : previousPositions) {
+            if (previous == key) {
+                ++count;
             }
         }
+        return count;
     }
 
     /**
@@ -131,24 +223,17 @@ public class ChessGame {
      * @return True if the specified team is in check
      */
     public boolean isInCheck(TeamColor teamColor) {
+        if (teamColor == activeTeam) {
+            return getStatus().isInCheck();
+        }
         return board.isInCheck(teamColor);
     }
 
     private boolean hasValidMoves(TeamColor teamColor) {
-        //go through every space on the board
-        for (int r = 1; r <= 8; ++r) {
-            for (int c = 1; c <= 8; ++c) {
-                //check if the piece at that space exists and if it has any legal moves
-                ChessPiece p = board.getPiece(new ChessPosition(r, c));
-                if (p == null || p.getTeamColor() != teamColor) {
-                    continue;
-                }
-                if (!validMoves(new ChessPosition(r, c)).isEmpty()) {
-                    return true;
-                }
-            }
+        if (teamColor == activeTeam) {
+            return getStatus().getLegalMoveCount() > 0;
         }
-        return false;
+        return generator.hasLegalMove(board, teamColor, new MoveList());
     }
 
     /**
@@ -190,6 +275,39 @@ public class ChessGame {
         return board;
     }
 
+    /**
+     * Gets a 64-bit Zobrist key for the current position: the pieces, castling rights, en passant,
+     * and whose turn it is. Two games in the same position have the same key, however they got there.
+     *
+     * @return the key for the current position
+     */
+    public long getZobristKey() {
+        long key = board.getZobristKey();
+        return activeTeam == TeamColor.BLACK ? key ^ Zobrist.blackToMove() : key;
+    }
+
+    /**
+     * Gets the keys (see getZobristKey()) of the positions played since the last capture or pawn move,
+     * oldest first, not counting the current position. These are the only earlier positions that
+     * could be repeated.
+     *
+     * @return a copy of the previous positions' keys
+     */
+    public long[] getPreviousPositions() {
+        return previousPositions.clone();
+    }
+
+    /**
+     * Gets how many moves (by either team) have been made, going by the move number: 0 at the start,
+     * 1 once white has moved, and so on. Each position in a game has its own ply, so it can be used to
+     * number the moves as they're made.
+     *
+     * @return the ply of the current position
+     */
+    public int getPly() {
+        return (board.getFullmoveNumber() - 1) * 2 + (activeTeam == TeamColor.BLACK ? 1 : 0);
+    }
+
     public void setGameOver() {
         gameOver = true;
     }
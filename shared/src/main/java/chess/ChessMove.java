@@ -49,8 +49,8 @@ public class ChessMove {
     }
 
     public int getLength() {
-        int rowDiff = (finalPos.row - initialPos.row) + (finalPos.col - initialPos.col);
-        int colDiff = (finalPos.row - initialPos.row) + (finalPos.col - initialPos.col);
+        int rowDiff = finalPos.row - initialPos.row;
+        int colDiff = finalPos.col - initialPos.col;
         return max(abs(rowDiff), abs(colDiff));
     }
 
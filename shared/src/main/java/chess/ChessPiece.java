@@ -11,21 +11,33 @@ import java.util.Objects;
  */
 public class ChessPiece {
 
-    ChessGame.TeamColor team;
-    PieceType type;
-    boolean hasMoved = false;
-    boolean didDoubleMoveLastTurn = false;
+    //one shared instance for each team and type, indexed by bitboardIndex()
+    private static final ChessPiece[] PIECES = new ChessPiece[12];
+
+    static {
+        for (ChessGame.TeamColor team : ChessGame.TeamColor.values()) {
+            for (PieceType type : PieceType.values()) {
+                PIECES[bitboardIndex(team, type)] = new ChessPiece(team, type);
+            }
+        }
+    }
+
+    final ChessGame.TeamColor team;
+    final PieceType type;
 
     public ChessPiece(ChessGame.TeamColor pieceColor, PieceType type) {
         team = pieceColor;
         this.type = type;
     }
 
-    public ChessPiece(ChessPiece that) {
-        this.team = that.getTeamColor();
-        this.type = that.getPieceType();
-        this.hasMoved = that.getHasMoved();
-        this.didDoubleMoveLastTurn = that.getDidDoubleMoveLastTurn();
+    /**
+     * Gets the piece of the given team and type. Pieces can't be changed, so one is shared for
+     * each kind of piece instead of creating a new one.
+     *
+     * @return the piece
+     */
+    public static ChessPiece of(ChessGame.TeamColor team, PieceType type) {
+        return PIECES[bitboardIndex(team, type)];
     }
 
     @Override
@@ -68,24 +80,13 @@ public class ChessPiece {
         return type;
     }
 
-    public void setPieceType(PieceType type) {
-        this.type = type;
-    }
-
-    public boolean getHasMoved() {
-        return hasMoved;
-    }
-
-    public void setHasMoved() {
-        hasMoved = true;
-    }
-
-    public boolean getDidDoubleMoveLastTurn() {
-        return didDoubleMoveLastTurn;
+    //which of ChessBoard's piece bitboards this piece belongs in
+    int bitboardIndex() {
+        return bitboardIndex(team, type);
     }
 
-    public void setDidDoubleMoveLastTurn(boolean didDoubleMove) {
-        didDoubleMoveLastTurn = didDoubleMove;
+    static int bitboardIndex(ChessGame.TeamColor team, PieceType type) {
+        return team.ordinal() * PieceType.values().length + type.ordinal();
     }
 
     @Override
@@ -9,14 +9,40 @@ import java.util.Objects;
  * signature of the existing methods.
  */
 public class ChessPosition {
-    int row;
-    int col;
+    //one shared instance for each space on the board, indexed like ChessBoard's squares
+    private static final ChessPosition[] POSITIONS = new ChessPosition[ChessBoard.NUM_SQUARES];
+
+    static {
+        for (int square = 0; square < POSITIONS.length; ++square) {
+            POSITIONS[square] = new ChessPosition(square / 8 + 1, square % 8 + 1);
+        }
+    }
+
+    final int row;
+    final int col;
 
     public ChessPosition(int row, int col) {
         this.row = row;
         this.col = col;
     }
 
+    /**
+     * Gets the position at the given row and column. Positions on the board are shared
+     * instead of created, so this doesn't allocate anything.
+     *
+     * @return the position (a new one if it's off the board)
+     */
+    public static ChessPosition of(int row, int col) {
+        if (!ChessBoard.isInBounds(row, col)) {
+            return new ChessPosition(row, col);
+        }
+        return POSITIONS[ChessBoard.toSquare(row, col)];
+    }
+
+    static ChessPosition of(int square) {
+        return POSITIONS[square];
+    }
+
     /**
      * @return which row this position is in
      * 1 codes for the bottom row
@@ -0,0 +1,223 @@
+package chess;
+
+/**
+ * Reads and writes positions in Forsyth-Edwards Notation: the pieces row by row from the 8th, whose
+ * turn it is, the castling rights, the en passant square, and the two move counters, e.g.
+ * "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1". Both directions work a character at
+ * a time, so the only things created are the board being read into or the string being written.
+ * <p>
+ * Like the boards themselves, en passant is only kept when a pawn can actually make the capture, and
+ * castling rights only when the king and rook are on their starting spaces, so those fields can come
+ * back out as "-" when the FEN that went in named them anyway.
+ */
+final class Fen {
+    //letters for each PieceType, in ordinal order
+    private static final String PIECE_LETTERS = "KQBNRP";
+    private static final ChessPiece.PieceType[] PIECE_TYPES = ChessPiece.PieceType.values();
+    //the castling rights bits, in the order FEN lists them
+    private static final String CASTLING_LETTERS = "KQkq";
+
+    private Fen() {
+    }
+
+    /**
+     * Sets an empty board up from a FEN. The move counters are optional, and default to 0 and 1.
+     *
+     * @return whose turn it is
+     * @throws IllegalArgumentException if the FEN is malformed
+     */
+    static ChessGame.TeamColor read(String fen, ChessBoard board) {
+        int i = readPieces(fen, board);
+
+        i = expectSpace(fen, i);
+        ChessGame.TeamColor toMove = switch (charAt(fen, i++)) {
+            case 'w' -> ChessGame.TeamColor.WHITE;
+            case 'b' -> ChessGame.TeamColor.BLACK;
+            default -> throw malformed(fen, "whose turn it is should be w or b");
+        };
+
+        i = expectSpace(fen, i);
+        int rights = 0;
+        if (charAt(fen, i) == '-') {
+            ++i;
+        } else {
+            for (; i < fen.length() && fen.charAt(i) != ' '; ++i) {
+                int right = CASTLING_LETTERS.indexOf(fen.charAt(i));
+                if (right < 0) {
+                    throw malformed(fen, "castling rights should be some of KQkq, or -");
+                }
+                rights |= 1 << right;
+            }
+        }
+        board.castlingRights = rights & (board.startingCastlingRights(ChessBoard.toSquare(1, 5))
+                | board.startingCastlingRights(ChessBoard.toSquare(8, 5)));
+
+        i = expectSpace(fen, i);
+        board.enPassantSquare = -1;
+        if (charAt(fen, i) == '-') {
+            ++i;
+        } else {
+            i = readEnPassant(fen, i, board, toMove);
+        }
+
+        board.halfmoveClock = 0;
+        board.fullmoveNumber = 1;
+        if (i < fen.length()) {
+            i = expectSpace(fen, i);
+            int start = i;
+            for (; i < fen.length() && fen.charAt(i) != ' '; ++i) {
+                board.halfmoveClock = readDigit(fen, i, board.halfmoveClock);
+            }
+            if (i == start) {
+                throw malformed(fen, "the move counters should be numbers");
+            }
+            i = expectSpace(fen, i);
+            start = i;
+            board.fullmoveNumber = 0;
+            for (; i < fen.length() && fen.charAt(i) != ' '; ++i) {
+                board.fullmoveNumber = readDigit(fen, i, board.fullmoveNumber);
+            }
+            if (i == start || board.fullmoveNumber < 1) {
+                throw malformed(fen, "the move number should start at 1");
+            }
+        }
+        if (i != fen.length()) {
+            throw malformed(fen, "unexpected text at the end");
+        }
+        return toMove;
+    }
+
+    //the pieces, 8th row first and a column at a time, with digits for runs of empty spaces
+    private static int readPieces(String fen, ChessBoard board) {
+        int row = 8;
+        int col = 1;
+        int i = 0;
+        for (; i < fen.length() && fen.charAt(i) != ' '; ++i) {
+            char c = fen.charAt(i);
+            if (c == '/') {
+                if (col != 9 || row == 1) {
+                    throw malformed(fen, "row " + row + " should have 8 spaces");
+                }
+                --row;
+                col = 1;
+            } else if (c >= '1' && c <= '8') {
+                col += c - '0';
+            } else {
+                int type = PIECE_LETTERS.indexOf(Character.toUpperCase(c));
+                if (type < 0 || col > 8) {
+                    throw malformed(fen, "unexpected '" + c + "' in row " + row);
+                }
+                ChessGame.TeamColor team = Character.isUpperCase(c) ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+                board.setSquare(ChessBoard.toSquare(row, col), ChessPiece.of(team, PIECE_TYPES[type]));
+                ++col;
+            }
+            if (col > 9) {
+                throw malformed(fen, "row " + row + " should have 8 spaces");
+            }
+        }
+        if (row != 1 || col != 9) {
+            throw malformed(fen, "there should be 8 rows of 8 spaces");
+        }
+        return i;
+    }
+
+    //the space behind a pawn that just moved two spaces, which is on the 6th row when white is to move
+    private static int readEnPassant(String fen, int i, ChessBoard board, ChessGame.TeamColor toMove) {
+        int col = charAt(fen, i) - 'a' + 1;
+        int row = charAt(fen, i + 1) - '0';
+        int expectedRow = toMove == ChessGame.TeamColor.WHITE ? 6 : 3;
+        if (col < 1 || col > 8 || row != expectedRow) {
+            throw malformed(fen, "the en passant space should be on row " + expectedRow + ", or -");
+        }
+        int square = ChessBoard.toSquare(row, col);
+        ChessGame.TeamColor mover = toMove.opponent();
+        int pawnSquare = toMove == ChessGame.TeamColor.WHITE ? square - 8 : square + 8;
+        if (board.getPiece(pawnSquare) != ChessPiece.of(mover, ChessPiece.PieceType.PAWN)) {
+            throw malformed(fen, "no pawn could have just moved past the en passant space");
+        }
+        //same as ChessBoard.updateHeader(): only kept if a pawn can capture
+        if ((Attacks.pawn(mover, square) & board.getBitboard(toMove, ChessPiece.PieceType.PAWN)) != 0) {
+            board.enPassantSquare = square;
+        }
+        return i + 2;
+    }
+
+    /**
+     * Writes a board's position as a FEN
+     *
+     * @param toMove whose turn it is
+     */
+    static String write(ChessBoard board, ChessGame.TeamColor toMove) {
+        //the longest possible FEN is under 90 characters
+        StringBuilder fen = new StringBuilder(90);
+        for (int row = 8; row >= 1; --row) {
+            int empty = 0;
+            for (int col = 1; col <= 8; ++col) {
+                ChessPiece piece = board.getPiece(ChessBoard.toSquare(row, col));
+                if (piece == null) {
+                    ++empty;
+                    continue;
+                }
+                if (empty > 0) {
+                    fen.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                char letter = PIECE_LETTERS.charAt(piece.getPieceType().ordinal());
+                fen.append(piece.getTeamColor() == ChessGame.TeamColor.WHITE ? letter : Character.toLowerCase(letter));
+            }
+            if (empty > 0) {
+                fen.append((char) ('0' + empty));
+            }
+            if (row > 1) {
+                fen.append('/');
+            }
+        }
+
+        fen.append(toMove == ChessGame.TeamColor.WHITE ? " w " : " b ");
+        int rights = board.getCastlingRights();
+        if (rights == 0) {
+            fen.append('-');
+        }
+        for (int right = 0; right < CASTLING_LETTERS.length(); ++right) {
+            if ((rights & (1 << right)) != 0) {
+                fen.append(CASTLING_LETTERS.charAt(right));
+            }
+        }
+
+        int enPassant = board.getEnPassantSquare();
+        fen.append(' ');
+        if (enPassant < 0) {
+            fen.append('-');
+        } else {
+            fen.append((char) ('a' + enPassant % 8)).append((char) ('1' + enPassant / 8));
+        }
+        return fen.append(' ').append(board.getHalfmoveClock()).append(' ').append(board.getFullmoveNumber()).toString();
+    }
+
+    private static char charAt(String fen, int i) {
+        if (i >= fen.length()) {
+            throw malformed(fen, "it ends too soon");
+        }
+        return fen.charAt(i);
+    }
+
+    private static int expectSpace(String fen, int i) {
+        if (charAt(fen, i) != ' ') {
+            throw malformed(fen, "the fields should be separated by single spaces");
+        }
+        return i + 1;
+    }
+
+    private static int readDigit(String fen, int i, int value) {
+        char c = fen.charAt(i);
+        //a few thousand moves is already more than any game has had
+        if (c < '0' || c > '9' || value > 100_000) {
+            throw malformed(fen, "the move counters should be numbers");
+        }
+        return value * 10 + (c - '0');
+    }
+
+    private static IllegalArgumentException malformed(String fen, String problem) {
+        return new IllegalArgumentException("bad FEN \"" + fen + "\": " + problem);
+    }
+}
@@ -0,0 +1,132 @@
+package chess;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Packs a game into a few dozen bytes for storing, instead of the kilobytes of JSON Gson writes out for
+ * all 64 spaces. Version 1 holds, in order:
+ * <ul>
+ * <li>the version (1 byte)</li>
+ * <li>flags: black to move (bit 0), game over (bit 1) (1 byte)</li>
+ * <li>the castling rights (1 byte) and en passant square, or -1 (1 byte)</li>
+ * <li>the halfmove clock and the move number (2 bytes each)</li>
+ * <li>a bitboard of the occupied squares (8 bytes)</li>
+ * <li>the piece on each occupied square, lowest square first, as its ChessPiece.bitboardIndex()
+ * (4 bits each, two to a byte)</li>
+ * <li>how many earlier positions are remembered for spotting repetitions, then their keys
+ * (2 bytes, then 8 bytes each)</li>
+ * </ul>
+ * The version comes first so the format can change without breaking games stored in an older one.
+ * It's never '{', so stored games can be told apart from JSON ones.
+ */
+public final class GameCodec {
+    public static final byte VERSION = 1;
+
+    private static final int BLACK_TO_MOVE = 1;
+    private static final int GAME_OVER = 2;
+    private static final int HEADER_BYTES = 16;
+    private static final ChessGame.TeamColor[] TEAMS = ChessGame.TeamColor.values();
+    private static final ChessPiece.PieceType[] PIECE_TYPES = ChessPiece.PieceType.values();
+
+    private GameCodec() {
+    }
+
+    /**
+     * @return the game packed in the latest version of the format
+     */
+    public static byte[] encode(ChessGame game) {
+        ChessBoard board = game.board;
+        long occupied = board.getOccupancy();
+        int pieces = Long.bitCount(occupied);
+        long[] previous = game.previousPositions;
+        //the clocks and the remembered positions are reset by every capture or pawn move, so they
+        //only outgrow two bytes in games nobody could finish
+        if (previous.length > Character.MAX_VALUE || board.getHalfmoveClock() > Character.MAX_VALUE
+                || board.getFullmoveNumber() > Character.MAX_VALUE) {
+            throw new IllegalArgumentException("game is too long to encode");
+        }
+
+        ByteBuffer out = ByteBuffer.allocate(HEADER_BYTES + (pieces + 1) / 2 + 2 + previous.length * Long.BYTES);
+        out.put(VERSION);
+        int flags = (game.activeTeam == ChessGame.TeamColor.BLACK ? BLACK_TO_MOVE : 0) | (game.gameOver ? GAME_OVER : 0);
+        out.put((byte) flags);
+        out.put((byte) board.getCastlingRights());
+        out.put((byte) board.getEnPassantSquare());
+        out.putChar((char) board.getHalfmoveClock());
+        out.putChar((char) board.getFullmoveNumber());
+        out.putLong(occupied);
+
+        int packed = 0;
+        int count = 0;
+        for (long rest = occupied; rest != 0; rest &= rest - 1) {
+            int index = board.getPiece(Long.numberOfTrailingZeros(rest)).bitboardIndex();
+            packed |= index << (4 * (count & 1));
+            if ((++count & 1) == 0) {
+                out.put((byte) packed);
+                packed = 0;
+            }
+        }
+        if ((count & 1) != 0) {
+            out.put((byte) packed);
+        }
+
+        out.putChar((char) previous.length);
+        for (long key : previous) {
+            out.putLong(key);
+        }
+        return out.array();
+    }
+
+    /**
+     * @return the game packed by encode(), in any version of the format
+     * @throws IllegalArgumentException if the bytes aren't a game in a known version
+     */
+    public static ChessGame decode(byte[] bytes) {
+        if (bytes.length < HEADER_BYTES || bytes[0] != VERSION) {
+            throw new IllegalArgumentException("not an encoded game, or from an unknown version");
+        }
+        try {
+            ByteBuffer in = ByteBuffer.wrap(bytes, 1, bytes.length - 1);
+            int flags = in.get();
+            ChessBoard board = new ChessBoard();
+            board.castlingRights = in.get() & ChessBoard.ALL_CASTLING;
+            board.enPassantSquare = in.get();
+            if (board.enPassantSquare < -1 || board.enPassantSquare >= ChessBoard.NUM_SQUARES) {
+                throw new IllegalArgumentException("encoded game has a bad en passant square");
+            }
+            board.halfmoveClock = in.getChar();
+            board.fullmoveNumber = in.getChar();
+            long occupied = in.getLong();
+
+            int packed = 0;
+            int count = 0;
+            for (long rest = occupied; rest != 0; rest &= rest - 1) {
+                if ((count & 1) == 0) {
+                    packed = in.get();
+                }
+                int index = (packed >>> (4 * (count++ & 1))) & 0xF;
+                if (index >= TEAMS.length * PIECE_TYPES.length) {
+                    throw new IllegalArgumentException("encoded game has an unknown piece");
+                }
+                board.setSquare(Long.numberOfTrailingZeros(rest),
+                        ChessPiece.of(TEAMS[index / PIECE_TYPES.length], PIECE_TYPES[index % PIECE_TYPES.length]));
+            }
+
+            long[] previous = new long[in.getChar()];
+            for (int i = 0; i < previous.length; ++i) {
+                previous[i] = in.getLong();
+            }
+            if (in.hasRemaining()) {
+                throw new IllegalArgumentException("encoded game has extra bytes");
+            }
+
+            ChessGame game = new ChessGame(board, (flags & BLACK_TO_MOVE) != 0 ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE);
+            game.gameOver = (flags & GAME_OVER) != 0;
+            game.previousPositions = previous;
+            return game;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("encoded game is cut short", e);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package chess;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Everything about a game's current position that depends on looking at every legal move: whether the
+ * team to move is in check, what its legal moves are, whether the game is over, and why it could be
+ * drawn. ChessGame works this out once per position and hands out the same status until the position
+ * changes, so it can be asked about as often as needed.
+ */
+public final class GameStatus {
+
+    /**
+     * The reasons a position can be drawn
+     */
+    public enum DrawReason {
+        //the team to move has no legal moves but isn't in check
+        STALEMATE,
+        //fifty moves by each team without a capture or pawn move
+        FIFTY_MOVE_RULE,
+        //the same position with the same team to move has come up three times
+        THREEFOLD_REPETITION,
+        //neither team has enough pieces left to ever checkmate
+        INSUFFICIENT_MATERIAL
+    }
+
+    private final ChessGame.TeamColor team;
+    private final boolean inCheck;
+    private final MoveList legalMoves;
+    private final Set<DrawReason> drawReasons;
+    //what the status was worked out for, so ChessGame can tell when it's out of date
+    final long key;
+    final int halfmoveClock;
+
+    GameStatus(ChessGame.TeamColor team, boolean inCheck, MoveList legalMoves, Set<DrawReason> drawReasons,
+               long key, int halfmoveClock) {
+        this.team = team;
+        this.inCheck = inCheck;
+        this.legalMoves = legalMoves;
+        this.drawReasons = drawReasons.isEmpty()
+                ? Collections.emptySet() : Collections.unmodifiableSet(EnumSet.copyOf(drawReasons));
+        this.key = key;
+        this.halfmoveClock = halfmoveClock;
+    }
+
+    /**
+     * @return the team whose turn it is
+     */
+    public ChessGame.TeamColor getTeam() {
+        return team;
+    }
+
+    /**
+     * @return true if the team to move is in check
+     */
+    public boolean isInCheck() {
+        return inCheck;
+    }
+
+    /**
+     * @return true if the team to move is in check and has no legal moves
+     */
+    public boolean isCheckmate() {
+        return inCheck && legalMoves.isEmpty();
+    }
+
+    /**
+     * @return true if the team to move isn't in check but has no legal moves
+     */
+    public boolean isStalemate() {
+        return !inCheck && legalMoves.isEmpty();
+    }
+
+    /**
+     * @return every reason the position is or could be declared a draw (empty if there are none)
+     */
+    public Set<DrawReason> getDrawReasons() {
+        return drawReasons;
+    }
+
+    /**
+     * @return every legal move for the team to move
+     */
+    public Collection<ChessMove> getLegalMoves() {
+        return legalMoves.asChessMoves();
+    }
+
+    /**
+     * @return the number of legal moves the team to move has
+     */
+    public int getLegalMoveCount() {
+        return legalMoves.size();
+    }
+
+    //the legal moves packed into ints; callers must not change the list
+    MoveList legalMoves() {
+        return legalMoves;
+    }
+
+    @Override
+    public String toString() {
+        String state = isCheckmate() ? "checkmate" : isStalemate() ? "stalemate" : inCheck ? "check" : "playing";
+        return String.format("%s to move, %s, %d legal moves, draw reasons %s", team, state, legalMoves.size(), drawReasons);
+    }
+}
@@ -1,44 +1,31 @@
 package chess;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
-
 public class KingMovesCalculator extends PieceMovesCalculator {
-    private final int[][] spacesToCheck = { {1, -1}, {1, 0}, {1, 1}, {0, -1}, {0, 1}, {-1, -1}, {-1, 0}, {-1, 1} };
-
     public KingMovesCalculator(ChessBoard board, ChessPosition startPosition, ChessPiece piece) {
         super(board, startPosition, piece);
     }
 
     @Override
-    public Collection<ChessMove> calculateMoves() {
-        List<ChessMove> validMoves = new ArrayList<>();
+    void generate(MoveList moves) {
+        generate(board, startSquare(), piece.getTeamColor(), moves);
+    }
 
+    static void generate(ChessBoard board, int from, ChessGame.TeamColor team, MoveList moves) {
         //normal movement
-        addMovesFromList(validMoves, spacesToCheck);
+        addMovesFromBitboard(board, from, team, Attacks.king(from), moves);
 
-        //castling
-        boolean isInStartingPosition = startPosition.col == 5 && startPosition.row == (piece.getTeamColor() == ChessGame.TeamColor.WHITE ? 1 : 8);
-        if (!piece.getHasMoved() && isInStartingPosition) {
-            ChessPiece rook;
-            //queenSide
-            rook = board.getPiece(new ChessPosition(startPosition.getRow(), 1));
-            if (rook != null && !rook.getHasMoved()
-                    && isEmpty(shiftOver(0, -1))
-                    && isEmpty(shiftOver(0, -2))
-                    && isEmpty(shiftOver(0, -3))) {
-                validMoves.add(new ChessMove(startPosition, new ChessPosition(startPosition.getRow(), 3), null));
-            }
-            //kingSide
-            rook = board.getPiece(new ChessPosition(startPosition.getRow(), 8));
-            if (rook != null && !rook.getHasMoved()
-                    && isEmpty(shiftOver(0, 1))
-                    && isEmpty(shiftOver(0, 2))) {
-                validMoves.add(new ChessMove(startPosition, new ChessPosition(startPosition.getRow(), 7), null));
-            }
+        //castling, if the king and rook haven't moved and the spaces between them are empty
+        //(castling bits are 1 kingside and 2 queenside, shifted up by 2 for black)
+        boolean isWhite = team == ChessGame.TeamColor.WHITE;
+        if (from != ChessBoard.toSquare(isWhite ? 1 : 8, 5)) {
+            return;
+        }
+        int rights = board.getCastlingRights() >> (isWhite ? 0 : 2);
+        if ((rights & 1) != 0 && !board.isOccupied(from + 1) && !board.isOccupied(from + 2)) {
+            moves.add(Move.of(from, from + 2, Move.KING_CASTLE));
+        }
+        if ((rights & 2) != 0 && !board.isOccupied(from - 1) && !board.isOccupied(from - 2) && !board.isOccupied(from - 3)) {
+            moves.add(Move.of(from, from - 2, Move.QUEEN_CASTLE));
         }
-
-        return validMoves;
     }
 }
@@ -1,20 +1,16 @@
 package chess;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
-
 public class KnightMovesCalculator extends PieceMovesCalculator {
-    private final int[][] spacesToCheck = { {1, 2}, {-1, 2}, {1, -2}, {-1, -2}, {2, 1}, {-2, 1}, {2, -1}, {-2, -1} };
-
     public KnightMovesCalculator(ChessBoard board, ChessPosition startPosition, ChessPiece piece) {
         super(board, startPosition, piece);
     }
 
     @Override
-    public Collection<ChessMove> calculateMoves() {
-        List<ChessMove> validMoves = new ArrayList<>();
-        addMovesFromList(validMoves, spacesToCheck);
-        return validMoves;
+    void generate(MoveList moves) {
+        generate(board, startSquare(), piece.getTeamColor(), moves);
+    }
+
+    static void generate(ChessBoard board, int from, ChessGame.TeamColor team, MoveList moves) {
+        addMovesFromBitboard(board, from, team, Attacks.knight(from), moves);
     }
 }
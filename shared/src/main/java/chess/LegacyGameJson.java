@@ -0,0 +1,109 @@
+package chess;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+/**
+ * Reads games saved as JSON before boards were bitboards, when Gson wrote out the board as an 8x8 array
+ * of pieces (board.board[row - 1][col - 1]), each with its team, type, hasMoved and didDoubleMoveLastTurn.
+ * That layout doesn't match any of ChessBoard's fields now, so Gson can't read it back by itself.
+ * <p>
+ * The old pieces remembered what the board doesn't store any more: castling rights come from whether
+ * the kings and rooks have moved, and the en passant square from the pawn that just moved two spaces.
+ * The move counters weren't saved, so they start over.
+ */
+public final class LegacyGameJson {
+    private LegacyGameJson() {
+    }
+
+    /**
+     * @return whether the JSON is a game in the old layout
+     */
+    public static boolean matches(String json) {
+        try {
+            JsonElement board = JsonParser.parseString(json).getAsJsonObject().get("board");
+            return board != null && board.isJsonObject() && board.getAsJsonObject().get("board") instanceof JsonArray;
+        } catch (JsonParseException | IllegalStateException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return the game saved as JSON in the old layout
+     * @throws IllegalArgumentException if the JSON isn't a game in the old layout
+     */
+    public static ChessGame read(String json) {
+        try {
+            JsonObject game = JsonParser.parseString(json).getAsJsonObject();
+            JsonArray rows = game.getAsJsonObject("board").getAsJsonArray("board");
+            if (rows.size() != 8) {
+                throw new IllegalArgumentException("old game's board doesn't have 8 rows");
+            }
+
+            ChessBoard board = new ChessBoard();
+            //the kings and rooks that have moved, which can't castle even back on their starting spaces
+            long moved = 0;
+            int enPassantPawn = -1;
+            ChessGame.TeamColor toMove = game.has("activeTeam")
+                    ? ChessGame.TeamColor.valueOf(game.get("activeTeam").getAsString()) : ChessGame.TeamColor.WHITE;
+            for (int row = 1; row <= 8; ++row) {
+                JsonArray cols = rows.get(row - 1).getAsJsonArray();
+                if (cols.size() != 8) {
+                    throw new IllegalArgumentException("old game's board doesn't have 8 columns");
+                }
+                for (int col = 1; col <= 8; ++col) {
+                    if (cols.get(col - 1).isJsonNull()) {
+                        continue;
+                    }
+                    JsonObject saved = cols.get(col - 1).getAsJsonObject();
+                    ChessPiece piece = ChessPiece.of(ChessGame.TeamColor.valueOf(saved.get("team").getAsString()),
+                            ChessPiece.PieceType.valueOf(saved.get("type").getAsString()));
+                    int square = ChessBoard.toSquare(row, col);
+                    board.addPiece(ChessPosition.of(row, col), piece);
+                    if (flag(saved, "hasMoved")) {
+                        moved |= 1L << square;
+                    }
+                    //only the pawns of whoever just moved can have done it last turn: the others' flags
+                    //weren't cleared until their next move
+                    if (piece.getPieceType() == ChessPiece.PieceType.PAWN && piece.getTeamColor() != toMove
+                            && flag(saved, "didDoubleMoveLastTurn")) {
+                        enPassantPawn = square;
+                    }
+                }
+            }
+            //adding the pieces allowed every castle with a king and rook in place
+            for (long rest = moved; rest != 0; rest &= rest - 1) {
+                board.castlingRights &= ~board.startingCastlingRights(Long.numberOfTrailingZeros(rest));
+            }
+            if (enPassantPawn >= 0) {
+                setEnPassant(board, enPassantPawn, toMove);
+            }
+
+            ChessGame result = new ChessGame(board, toMove);
+            result.gameOver = flag(game, "gameOver");
+            return result;
+        } catch (JsonParseException | IllegalStateException | NullPointerException | ClassCastException e) {
+            throw new IllegalArgumentException("not a game in the old JSON layout", e);
+        }
+    }
+
+    //the space behind the pawn, kept only if a pawn can capture there, as Fen does
+    private static void setEnPassant(ChessBoard board, int pawnSquare, ChessGame.TeamColor toMove) {
+        ChessGame.TeamColor mover = toMove.opponent();
+        int expectedRow = mover == ChessGame.TeamColor.WHITE ? 4 : 5;
+        if (pawnSquare / 8 + 1 != expectedRow) {
+            return;
+        }
+        int square = mover == ChessGame.TeamColor.WHITE ? pawnSquare - 8 : pawnSquare + 8;
+        if ((Attacks.pawn(mover, square) & board.getBitboard(toMove, ChessPiece.PieceType.PAWN)) != 0) {
+            board.enPassantSquare = square;
+        }
+    }
+
+    private static boolean flag(JsonObject object, String name) {
+        return object.has(name) && object.get(name).getAsBoolean();
+    }
+}
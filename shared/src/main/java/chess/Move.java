@@ -0,0 +1,108 @@
+package chess;
+
+/**
+ * Moves packed into an int, so move generation and search can work with plain int arrays instead
+ * of creating a ChessMove for every move they look at.
+ * <p>
+ * Bits 0-5 are the starting square, bits 6-11 are the ending square (numbered like ChessBoard's
+ * bitboards), and bits 12-15 are flags saying what kind of move it is. A capture flag is set on
+ * every capture, and a promotion flag on every promotion, with the low two flag bits picking the
+ * piece to promote to.
+ */
+public final class Move {
+    /** Not a move. Useful as an "empty" value, since a1 to a1 can never be played */
+    public static final int NONE = 0;
+
+    public static final int QUIET = 0;
+    public static final int DOUBLE_PAWN_PUSH = 1;
+    public static final int KING_CASTLE = 2;
+    public static final int QUEEN_CASTLE = 3;
+    public static final int CAPTURE = 4;
+    public static final int EN_PASSANT = 5;
+    public static final int PROMOTION = 8;
+
+    //indexed by the low two flag bits of a promotion
+    private static final ChessPiece.PieceType[] PROMOTION_PIECES = {
+            ChessPiece.PieceType.KNIGHT, ChessPiece.PieceType.BISHOP,
+            ChessPiece.PieceType.ROOK, ChessPiece.PieceType.QUEEN
+    };
+
+    private Move() {
+    }
+
+    public static int of(int from, int to, int flags) {
+        return from | (to << 6) | (flags << 12);
+    }
+
+    /**
+     * @return a promotion to the given piece, with the capture flag added if it is also a capture
+     */
+    public static int promotion(int from, int to, ChessPiece.PieceType piece, boolean capture) {
+        int flags = PROMOTION | promotionIndex(piece) | (capture ? CAPTURE : 0);
+        return of(from, to, flags);
+    }
+
+    public static int from(int move) {
+        return move & 0x3F;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 0x3F;
+    }
+
+    public static int flags(int move) {
+        return (move >>> 12) & 0xF;
+    }
+
+    public static boolean isCapture(int move) {
+        return (flags(move) & CAPTURE) != 0;
+    }
+
+    public static boolean isPromotion(int move) {
+        return (flags(move) & PROMOTION) != 0;
+    }
+
+    public static boolean isCastle(int move) {
+        int flags = flags(move);
+        return flags == KING_CASTLE || flags == QUEEN_CASTLE;
+    }
+
+    /**
+     * @return the piece a pawn is promoted to, or null if the move isn't a promotion
+     */
+    public static ChessPiece.PieceType promotionPiece(int move) {
+        return isPromotion(move) ? PROMOTION_PIECES[flags(move) & 3] : null;
+    }
+
+    /**
+     * @return true if the packed move and the ChessMove go from and to the same squares
+     * and promote to the same piece (the packed move's other flags aren't compared)
+     */
+    public static boolean matches(int move, ChessMove chessMove) {
+        ChessPosition start = chessMove.getStartPosition();
+        ChessPosition end = chessMove.getEndPosition();
+        return ChessBoard.isInBounds(start.getRow(), start.getColumn())
+                && ChessBoard.isInBounds(end.getRow(), end.getColumn())
+                && from(move) == ChessBoard.toSquare(start)
+                && to(move) == ChessBoard.toSquare(end)
+                && promotionPiece(move) == chessMove.getPromotionPiece();
+    }
+
+    public static ChessMove toChessMove(int move) {
+        return new ChessMove(ChessBoard.toPosition(from(move)), ChessBoard.toPosition(to(move)), promotionPiece(move));
+    }
+
+    public static String toString(int move) {
+        return toChessMove(move).toString();
+    }
+
+    private static int promotionIndex(ChessPiece.PieceType piece) {
+        return switch (piece) {
+            case KNIGHT -> 0;
+            case BISHOP -> 1;
+            case ROOK -> 2;
+            case QUEEN -> 3;
+            default -> throw new IllegalArgumentException("can't promote to " + piece);
+        };
+    }
+}
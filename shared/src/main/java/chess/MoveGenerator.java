@@ -0,0 +1,186 @@
+package chess;
+
+/**
+ * Generates moves straight into a MoveList, using the piece calculators without creating them.
+ * <p>
+ * The static methods generate each piece's moves by its movement rules alone, which may leave the
+ * mover's king in check. The instance methods generate only legal moves: before generating, they work
+ * out once which enemy pieces are giving check, which of the team's pieces are pinned to their king,
+ * and which spaces the enemy attacks. Each move is then checked against those with a few bit
+ * operations instead of being tried on the board. One generator can be reused for any number of
+ * positions, but not by several threads at once.
+ */
+final class MoveGenerator {
+    //what analyze() found out about the position being generated for
+    private ChessBoard board;
+    private ChessGame.TeamColor team;
+    //-1 if the team has no king, in which case nothing is illegal because of check
+    private int kingSquare;
+    private long checkers;
+    private long pinned;
+    //spaces the enemy attacks, with the king taken off the board so it can't hide behind itself
+    private long kingDanger;
+    //where a piece other than the king has to move to get out of check: capturing the checker or blocking it
+    private long evasionTargets;
+
+    /**
+     * Adds the moves of every one of a team's pieces, whether or not they leave its king in check
+     */
+    static void generate(ChessBoard board, ChessGame.TeamColor team, MoveList moves) {
+        for (long pieces = board.getOccupancy(team); pieces != 0; pieces &= pieces - 1) {
+            generate(board, Long.numberOfTrailingZeros(pieces), moves);
+        }
+    }
+
+    /**
+     * Adds the moves of the piece on the given square, if there is one, whether or not they leave its
+     * king in check
+     */
+    static void generate(ChessBoard board, int square, MoveList moves) {
+        ChessPiece piece = board.getPiece(square);
+        if (piece == null) {
+            return;
+        }
+        ChessGame.TeamColor team = piece.getTeamColor();
+        switch (piece.getPieceType()) {
+            case PAWN -> PawnMovesCalculator.generate(board, square, team, moves);
+            case ROOK -> RookMovesCalculator.generate(board, square, team, moves);
+            case KNIGHT -> KnightMovesCalculator.generate(board, square, team, moves);
+            case BISHOP -> BishopMovesCalculator.generate(board, square, team, moves);
+            case KING -> KingMovesCalculator.generate(board, square, team, moves);
+            case QUEEN -> QueenMovesCalculator.generate(board, square, team, moves);
+        }
+    }
+
+    /**
+     * Adds every legal move for a team
+     */
+    void generateLegal(ChessBoard board, ChessGame.TeamColor team, MoveList moves) {
+        analyze(board, team);
+        int start = moves.size();
+        if (isDoubleCheck()) {
+            //only the king can get out of a double check
+            generate(board, kingSquare, moves);
+        } else {
+            generate(board, team, moves);
+        }
+        removeIllegal(moves, start);
+    }
+
+    /**
+     * Adds the legal moves of the piece on the given square, if there is one
+     */
+    void generateLegal(ChessBoard board, int square, MoveList moves) {
+        ChessPiece piece = board.getPiece(square);
+        if (piece == null) {
+            return;
+        }
+        analyze(board, piece.getTeamColor());
+        int start = moves.size();
+        generate(board, square, moves);
+        removeIllegal(moves, start);
+    }
+
+    /**
+     * Checks whether a team has any legal move, stopping at the first one found
+     *
+     * @param scratch a list to generate each piece's moves into (its contents are replaced)
+     */
+    boolean hasLegalMove(ChessBoard board, ChessGame.TeamColor team, MoveList scratch) {
+        analyze(board, team);
+        //the king is the only piece that can move in a double check, and the likeliest to have a move otherwise
+        long pieces = kingSquare < 0 ? 0L : ChessBoard.bit(kingSquare);
+        if (!isDoubleCheck()) {
+            pieces |= board.getOccupancy(team);
+        }
+        for (; pieces != 0; pieces &= pieces - 1) {
+            scratch.clear();
+            generate(board, Long.numberOfTrailingZeros(pieces), scratch);
+            for (int i = 0; i < scratch.size(); ++i) {
+                if (isLegal(scratch.get(i))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void analyze(ChessBoard board, ChessGame.TeamColor team) {
+        this.board = board;
+        this.team = team;
+        long king = board.getBitboard(team, ChessPiece.PieceType.KING);
+        kingSquare = king == 0 ? -1 : Long.numberOfTrailingZeros(king);
+        if (kingSquare < 0) {
+            return;
+        }
+        ChessGame.TeamColor enemy = team.opponent();
+        long occupied = board.getOccupancy();
+        checkers = board.attackersTo(kingSquare, enemy, occupied);
+        kingDanger = board.attackedBy(enemy, occupied & ~king);
+        evasionTargets = checkers == 0 ? ~0L : checkers | Attacks.between(kingSquare, Long.numberOfTrailingZeros(checkers));
+
+        //an enemy slider lined up with the king pins the only piece between them, if it's one of ours
+        long queens = board.getBitboard(enemy, ChessPiece.PieceType.QUEEN);
+        long snipers = (Attacks.rook(kingSquare, 0L) & (queens | board.getBitboard(enemy, ChessPiece.PieceType.ROOK)))
+                | (Attacks.bishop(kingSquare, 0L) & (queens | board.getBitboard(enemy, ChessPiece.PieceType.BISHOP)));
+        pinned = 0L;
+        for (; snipers != 0; snipers &= snipers - 1) {
+            long blockers = Attacks.between(kingSquare, Long.numberOfTrailingZeros(snipers)) & occupied;
+            if (blockers != 0 && (blockers & (blockers - 1)) == 0) {
+                pinned |= blockers & board.getOccupancy(team);
+            }
+        }
+    }
+
+    private boolean isDoubleCheck() {
+        return kingSquare >= 0 && (checkers & (checkers - 1)) != 0;
+    }
+
+    //keeps only the legal moves from the given index on, without changing their order
+    private void removeIllegal(MoveList moves, int start) {
+        int kept = start;
+        for (int i = start; i < moves.size(); ++i) {
+            int move = moves.get(i);
+            if (isLegal(move)) {
+                moves.set(kept++, move);
+            }
+        }
+        moves.truncate(kept);
+    }
+
+    private boolean isLegal(int move) {
+        if (kingSquare < 0) {
+            return true;
+        }
+        int from = Move.from(move);
+        int to = Move.to(move);
+
+        if (from == kingSquare) {
+            //castling is invalid out of check, or through or into check
+            if (Move.isCastle(move)) {
+                return checkers == 0 && (kingDanger & (ChessBoard.bit((from + to) / 2) | ChessBoard.bit(to))) == 0;
+            }
+            return (kingDanger & ChessBoard.bit(to)) == 0;
+        }
+        if (isDoubleCheck()) {
+            return false;
+        }
+        if (Move.flags(move) == Move.EN_PASSANT) {
+            return isLegalEnPassant(from, to);
+        }
+        if ((evasionTargets & ChessBoard.bit(to)) == 0) {
+            return false;
+        }
+        //a pinned piece can only move along the line between its king and the pinning piece
+        return (pinned & ChessBoard.bit(from)) == 0 || (Attacks.line(kingSquare, from) & ChessBoard.bit(to)) != 0;
+    }
+
+    //en passant takes two pieces off the same row at once, which can uncover a check no pin would catch,
+    //so look for attacks on the king with the board as it would be after the capture
+    private boolean isLegalEnPassant(int from, int to) {
+        int captured = (from & ~7) | (to & 7);
+        long occupied = (board.getOccupancy() ^ ChessBoard.bit(from) ^ ChessBoard.bit(captured)) | ChessBoard.bit(to);
+        long attackers = board.attackersTo(kingSquare, team.opponent(), occupied) & ~ChessBoard.bit(captured);
+        return attackers == 0;
+    }
+}
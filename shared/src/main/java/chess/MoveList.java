@@ -0,0 +1,130 @@
+package chess;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A growable list of moves packed into ints (see Move). Move generators add to one of these
+ * instead of building a collection of ChessMoves, and a list can be cleared and reused, so
+ * searching through many positions doesn't have to allocate anything.
+ */
+public final class MoveList {
+    //no chess position has more than 218 legal moves
+    private static final int DEFAULT_CAPACITY = 256;
+
+    private int[] moves;
+    private int size = 0;
+
+    public MoveList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public MoveList(int capacity) {
+        moves = new int[capacity];
+    }
+
+    public void add(int move) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, moves.length * 2);
+        }
+        moves[size++] = move;
+    }
+
+    public int get(int index) {
+        return moves[index];
+    }
+
+    public void set(int index, int move) {
+        moves[index] = move;
+    }
+
+    public void swap(int i, int j) {
+        int temp = moves[i];
+        moves[i] = moves[j];
+        moves[j] = temp;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Drops every move from the given index onward
+     */
+    public void truncate(int newSize) {
+        size = newSize;
+    }
+
+    public boolean contains(int move) {
+        return indexOf(move) >= 0;
+    }
+
+    public int indexOf(int move) {
+        for (int i = 0; i < size; ++i) {
+            if (moves[i] == move) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the move that goes from and to the same squares as the given ChessMove (with the same
+     * promotion), or Move.NONE if there isn't one
+     */
+    public int find(ChessMove chessMove) {
+        for (int i = 0; i < size; ++i) {
+            if (Move.matches(moves[i], chessMove)) {
+                return moves[i];
+            }
+        }
+        return Move.NONE;
+    }
+
+    /**
+     * Gets a read-only view of these moves as ChessMoves. ChessMoves are only created as they are
+     * looked at, so checking the size or whether a move is in the list doesn't create any.
+     * The view changes along with this list.
+     *
+     * @return the moves as a list of ChessMoves
+     */
+    public List<ChessMove> asChessMoves() {
+        return new AbstractList<>() {
+            @Override
+            public ChessMove get(int index) {
+                if (index < 0 || index >= size) {
+                    throw new IndexOutOfBoundsException(index);
+                }
+                return Move.toChessMove(moves[index]);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return o instanceof ChessMove move && find(move) != Move.NONE;
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder("[");
+        for (int i = 0; i < size; ++i) {
+            out.append(i == 0 ? "" : ", ").append(Move.toString(moves[i]));
+        }
+        return out.append("]").toString();
+    }
+}
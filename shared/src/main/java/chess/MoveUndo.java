@@ -0,0 +1,22 @@
+package chess;
+
+/**
+ * Everything ChessBoard needs to take back a move it made in place.
+ * The board keeps a stack of these and reuses them, so making a move doesn't allocate anything.
+ */
+class MoveUndo {
+    int from;
+    int to;
+    ChessPiece movedPiece;
+    //the captured piece and where it was (not the same as 'to' when capturing en passant)
+    ChessPiece captured;
+    int capturedSquare;
+    //where the rook went if the move was a castle, otherwise -1
+    int rookFrom;
+    int rookTo;
+    //the board's header before the move
+    int castlingRights;
+    int enPassantSquare;
+    int halfmoveClock;
+    int fullmoveNumber;
+}
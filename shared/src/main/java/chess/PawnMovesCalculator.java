@@ -1,78 +1,63 @@
 package chess;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
-
 public class PawnMovesCalculator extends PieceMovesCalculator {
+    private static final ChessPiece.PieceType[] PROMOTIONS = {
+            ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.ROOK,
+            ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.KNIGHT
+    };
+
     public PawnMovesCalculator(ChessBoard board, ChessPosition startPosition, ChessPiece piece) {
         super(board, startPosition, piece);
     }
 
     @Override
-    public Collection<ChessMove> calculateMoves() {
-        List<ChessMove> validMoves = new ArrayList<>();
-
-        forwardMove(validMoves); //look at the space in front of the pawn
-        doubleMove(validMoves); //special case: the pawn can move 2 spaces if it hasn't moved yet
-        captureMove(validMoves, shiftOver(forward(1), -1)); //look at the space diagonal and to the left
-        captureMove(validMoves, shiftOver(forward(1), 1)); //look at the space diagonal and to the right
-        enPassantMove(validMoves, -1); //en passant left
-        enPassantMove(validMoves, 1); //en passant right
-
-        return validMoves;
+    void generate(MoveList moves) {
+        generate(board, startSquare(), piece.getTeamColor(), moves);
     }
 
-    void forwardMove(Collection<ChessMove> validMoves) {
-        ChessPosition frontSpace = shiftOver(forward(1), 0);
-        if (isEmpty(frontSpace) && !promotionMove(validMoves, frontSpace)) {
-            validMoves.add(new ChessMove(startPosition, frontSpace, null));
+    static void generate(ChessBoard board, int from, ChessGame.TeamColor team, MoveList moves) {
+        boolean isWhite = team == ChessGame.TeamColor.WHITE;
+        int row = from / 8 + 1;
+        //a pawn on the far row has nowhere to go
+        if (row == (isWhite ? 8 : 1)) {
+            return;
         }
-    }
-
-    void doubleMove(Collection<ChessMove> validMoves) {
-        boolean isInStartingRow = startPosition.row == (piece.getTeamColor() == ChessGame.TeamColor.WHITE ? 2 : 7);
-        if (isInStartingRow) {
-            ChessPosition twoSpaces = shiftOver(forward(2), 0);
-            if (isEmpty(shiftOver(forward(1), 0)) && isEmpty(twoSpaces)) {
-                validMoves.add(new ChessMove(startPosition, twoSpaces, null));
+        int forward = isWhite ? 8 : -8;
+        boolean promotes = row == (isWhite ? 7 : 2);
+
+        //look at the space in front of the pawn
+        int frontSpace = from + forward;
+        if (!board.isOccupied(frontSpace)) {
+            addMove(from, frontSpace, false, promotes, moves);
+            //special case: the pawn can move 2 spaces if it hasn't moved yet
+            boolean isInStartingRow = row == (isWhite ? 2 : 7);
+            if (isInStartingRow && !board.isOccupied(frontSpace + forward)) {
+                moves.add(Move.of(from, frontSpace + forward, Move.DOUBLE_PAWN_PUSH));
             }
         }
-    }
-
-    void captureMove(Collection<ChessMove> validMoves, ChessPosition captureSpace) {
-        if (isInBounds(captureSpace) && isEnemy(captureSpace) && !promotionMove(validMoves, captureSpace)) {
-            validMoves.add(new ChessMove(startPosition, captureSpace, null));
-        }
-    }
 
-    void enPassantMove(Collection<ChessMove> validMoves, int rightwards) {
-        ChessPosition sideSpace = shiftOver(0, rightwards);
-        ChessPosition diagonal = shiftOver(forward(1), rightwards);
-        boolean isInEnPassantRow = startPosition.row == (piece.getTeamColor() == ChessGame.TeamColor.WHITE ? 5 : 4);
-        if (isInEnPassantRow
-                && isEnemy(sideSpace)
-                && isEmpty(diagonal)
-                && board.getPiece(sideSpace).getDidDoubleMoveLastTurn()) {
-            validMoves.add(new ChessMove(startPosition, diagonal, null));
+        //look at the spaces diagonally in front
+        long captures = Attacks.pawn(team, from) & board.getOccupancy(team.opponent());
+        for (; captures != 0; captures &= captures - 1) {
+            addMove(from, Long.numberOfTrailingZeros(captures), true, promotes, moves);
         }
-    }
 
-    boolean promotionMove(Collection<ChessMove> validMoves, ChessPosition position) {
-        if (position.getRow() == (piece.getTeamColor() == ChessGame.TeamColor.WHITE ? 8 : 1)) {
-            validMoves.add(new ChessMove(startPosition, position, ChessPiece.PieceType.ROOK));
-            validMoves.add(new ChessMove(startPosition, position, ChessPiece.PieceType.KNIGHT));
-            validMoves.add(new ChessMove(startPosition, position, ChessPiece.PieceType.BISHOP));
-            validMoves.add(new ChessMove(startPosition, position, ChessPiece.PieceType.QUEEN));
-            return true;
+        //en passant: capture a pawn beside this one that just moved two spaces, by moving behind it
+        int enPassantSquare = board.getEnPassantSquare();
+        if (enPassantSquare >= 0 && (Attacks.pawn(team, from) & ChessBoard.bit(enPassantSquare)) != 0
+                && board.isOccupiedBy(enPassantSquare - forward, team.opponent())) {
+            moves.add(Move.of(from, enPassantSquare, Move.EN_PASSANT));
         }
-        return false;
     }
 
-    private int forward(int amount) {
-        if (piece.getTeamColor() == ChessGame.TeamColor.BLACK) {
-            amount = -amount;
+    //a pawn reaching the far row is promoted to one of four pieces
+    private static void addMove(int from, int to, boolean capture, boolean promotes, MoveList moves) {
+        if (promotes) {
+            for (ChessPiece.PieceType promotion : PROMOTIONS) {
+                moves.add(Move.promotion(from, to, promotion, capture));
+            }
+        } else {
+            moves.add(Move.of(from, to, capture ? Move.CAPTURE : Move.QUIET));
         }
-        return amount;
     }
 }
@@ -0,0 +1,123 @@
+package chess;
+
+/**
+ * Perft ("performance test") walks the tree of every legal move sequence to a fixed depth and counts
+ * the positions at the end. Because the counts for well known positions have been worked out by
+ * many other engines, comparing against them catches move generation bugs, and timing the walk
+ * measures how fast moves can be generated.
+ */
+public final class Perft {
+
+    /**
+     * Standard perft positions, with the known number of positions at each depth (index 0 is depth 1)
+     */
+    public enum Position {
+        START("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1", 20, 400, 8_902, 197_281, 4_865_609),
+        //"Kiwipete": lots of castling, pins, and en passant
+        KIWIPETE("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                48, 2_039, 97_862, 4_085_603),
+        //en passant captures that would expose the king along a rank
+        ENDGAME("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", 14, 191, 2_812, 43_238, 674_624),
+        //promotions, including capturing promotions, with castling only on one side
+        PROMOTIONS("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1", 6, 264, 9_467, 422_333),
+        DISCOVERED_CHECKS("rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8", 44, 1_486, 62_379, 2_103_487),
+        MIDDLEGAME("r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+                46, 2_079, 89_890, 3_894_594);
+
+        private final String fen;
+        private final long[] expectedNodes;
+
+        Position(String fen, long... expectedNodes) {
+            this.fen = fen;
+            this.expectedNodes = expectedNodes;
+        }
+
+        /**
+         * @return a new game set up in this position
+         */
+        public ChessGame newGame() {
+            return ChessGame.fromFen(fen);
+        }
+
+        /**
+         * @return the position in Forsyth-Edwards Notation
+         */
+        public String fen() {
+            return fen;
+        }
+
+        /**
+         * @return the deepest depth with a known node count
+         */
+        public int maxKnownDepth() {
+            return expectedNodes.length;
+        }
+
+        /**
+         * @return the known number of positions at the given depth
+         */
+        public long expectedNodes(int depth) {
+            return expectedNodes[depth - 1];
+        }
+    }
+
+    private Perft() {
+    }
+
+    /**
+     * Counts every position reachable in exactly the given number of moves. The game is
+     * left the way it was found.
+     *
+     * @param game  the game to start from
+     * @param depth how many moves to look ahead
+     * @return the number of positions at that depth
+     */
+    public static long perft(ChessGame game, int depth) {
+        //one move list for each level, reused for every position at that level
+        MoveList[] moveLists = new MoveList[Math.max(depth, 1)];
+        for (int i = 0; i < moveLists.length; ++i) {
+            moveLists[i] = new MoveList();
+        }
+        return perft(game, depth, moveLists);
+    }
+
+    private static long perft(ChessGame game, int depth, MoveList[] moveLists) {
+        if (depth == 0) {
+            return 1;
+        }
+        MoveList moves = moveLists[depth - 1];
+        game.generateMoves(moves);
+        //the last level only needs to be counted, not played
+        if (depth == 1) {
+            return moves.size();
+        }
+        ChessBoard board = game.getBoard();
+        ChessGame.TeamColor team = game.getTeamTurn();
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); ++i) {
+            board.makeMove(moves.get(i));
+            game.setTeamTurn(team.opponent());
+            nodes += perft(game, depth - 1, moveLists);
+            game.setTeamTurn(team);
+            board.unmakeMove();
+        }
+        return nodes;
+    }
+
+    /**
+     * Runs perft on a standard position and compares the result with the known count
+     *
+     * @param position the position to start from
+     * @param depth    how many moves to look ahead
+     * @return the number of positions at that depth
+     * @throws IllegalStateException if the count is wrong
+     */
+    public static long verify(Position position, int depth) {
+        long nodes = perft(position.newGame(), depth);
+        if (nodes != position.expectedNodes(depth)) {
+            throw new IllegalStateException(String.format("perft(%s, %d) found %d positions, expected %d",
+                    position, depth, nodes, position.expectedNodes(depth)));
+        }
+        return nodes;
+    }
+}
@@ -13,56 +13,27 @@ abstract public class PieceMovesCalculator {
         this.piece = piece;
     }
 
-    abstract public Collection<ChessMove> calculateMoves();
-
-    protected boolean isInBounds(ChessPosition position) {
-        return  position.getRow() >= 1
-                && position.getRow() <= 8
-                && position.getColumn() >= 1
-                && position.getColumn() <= 8;
-    }
-
-    protected boolean isEmpty(ChessPosition position) {
-        return board.getPiece(position) == null;
-    }
-
-    protected boolean isEnemy(ChessPosition position) {
-        if (isEmpty(position)) {
-            return false;
-        }
-        return piece.getTeamColor() != board.getPiece(position).getTeamColor();
+    public Collection<ChessMove> calculateMoves() {
+        //a single piece never has more than 27 moves
+        MoveList moves = new MoveList(32);
+        generate(moves);
+        return moves.asChessMoves();
     }
 
-    protected boolean isValidSpace(ChessPosition position) {
-        return isInBounds(position) && (isEmpty(position) || isEnemy(position));
-    }
+    //adds the piece's moves to the list, packed into ints
+    abstract void generate(MoveList moves);
 
-    protected ChessPosition shiftOver(int upwards, int rightwards) {
-        return new ChessPosition(startPosition.getRow() + upwards, startPosition.getColumn() + rightwards);
-    }
-
-    protected void goInDirection(Collection<ChessMove> validMoves, int upward, int rightward) {
-        //upward and rightward should be -1, 0, or 1. Go in the indicated direction and add all valid moves
-        for (int i = 1; i <= 8; ++i) {
-            ChessPosition currSpace = shiftOver(i * upward, i * rightward);
-            if (isValidSpace(currSpace)) {
-                validMoves.add(new ChessMove(startPosition, currSpace, null));
-            }
-            else {
-                break;
-            }
-            if (isEnemy(currSpace)) {
-                break;
-            }
-        }
+    protected int startSquare() {
+        return ChessBoard.toSquare(startPosition);
     }
 
-    protected void addMovesFromList(Collection<ChessMove> validMoves, int[][] spacesToCheck) {
-        for (int[] s : spacesToCheck) {
-            ChessPosition currSpace = shiftOver(s[0], s[1]);
-            if (isValidSpace(currSpace)) {
-                validMoves.add(new ChessMove(startPosition, currSpace, null));
-            }
+    //adds a move to each attacked space that isn't occupied by an ally
+    static void addMovesFromBitboard(ChessBoard board, int from, ChessGame.TeamColor team, long attacks, MoveList moves) {
+        long enemies = board.getOccupancy(team.opponent());
+        long targets = attacks & ~board.getOccupancy(team);
+        for (; targets != 0; targets &= targets - 1) {
+            int to = Long.numberOfTrailingZeros(targets);
+            moves.add(Move.of(from, to, (enemies & ChessBoard.bit(to)) != 0 ? Move.CAPTURE : Move.QUIET));
         }
     }
 }
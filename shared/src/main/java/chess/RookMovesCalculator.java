@@ -1,23 +1,16 @@
 package chess;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
-
 public class RookMovesCalculator extends PieceMovesCalculator {
     public RookMovesCalculator(ChessBoard board, ChessPosition startPosition, ChessPiece piece) {
         super(board, startPosition, piece);
     }
 
     @Override
-    public Collection<ChessMove> calculateMoves() {
-        List<ChessMove> validMoves = new ArrayList<>();
-
-        goInDirection(validMoves, 1, 0); //go up
-        goInDirection(validMoves, 0, 1); //go right
-        goInDirection(validMoves, -1, 0); //go down
-        goInDirection(validMoves, 0, -1); //go left
+    void generate(MoveList moves) {
+        generate(board, startSquare(), piece.getTeamColor(), moves);
+    }
 
-        return validMoves;
+    static void generate(ChessBoard board, int from, ChessGame.TeamColor team, MoveList moves) {
+        addMovesFromBitboard(board, from, team, Attacks.rook(from, board.getOccupancy()), moves);
     }
 }
@@ -0,0 +1,56 @@
+package chess;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random numbers for Zobrist hashing. A position's key is the XOR of the number for each piece on
+ * each square, plus numbers for the castling rights, the en passant file, and the side to move.
+ * Since XOR undoes itself, moving a piece only takes two XORs to update the key.
+ * <p>
+ * The numbers come from a fixed seed so keys are the same every time the program runs.
+ */
+final class Zobrist {
+    //indexed by ChessPiece.bitboardIndex(), then square
+    private static final long[][] PIECES = new long[12][ChessBoard.NUM_SQUARES];
+    //indexed by ChessBoard.getCastlingRights()
+    private static final long[] CASTLING = new long[16];
+    //indexed by the column (0-7) of the en passant square
+    private static final long[] EN_PASSANT = new long[8];
+    private static final long BLACK_TO_MOVE;
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5EED_C4E55L);
+        for (long[] squares : PIECES) {
+            for (int square = 0; square < squares.length; ++square) {
+                squares[square] = random.nextLong();
+            }
+        }
+        //no castling rights adds nothing, so a bare board's key is just its pieces
+        for (int rights = 1; rights < CASTLING.length; ++rights) {
+            CASTLING[rights] = random.nextLong();
+        }
+        for (int file = 0; file < EN_PASSANT.length; ++file) {
+            EN_PASSANT[file] = random.nextLong();
+        }
+        BLACK_TO_MOVE = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    static long piece(int bitboardIndex, int square) {
+        return PIECES[bitboardIndex][square];
+    }
+
+    static long castling(int rights) {
+        return CASTLING[rights];
+    }
+
+    static long enPassant(int square) {
+        return EN_PASSANT[square % 8];
+    }
+
+    static long blackToMove() {
+        return BLACK_TO_MOVE;
+    }
+}
@@ -0,0 +1,133 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+
+/**
+ * Scores a position without looking ahead, for the search to use at the end of each line.
+ * <p>
+ * The score is the pieces' material and piece-square values, which ChessBoard keeps running totals of
+ * as moves are made, plus a score for the pawn structure: doubled, isolated, and passed pawns. Each is
+ * worked out for the middlegame and the endgame, and the two are blended by how much material is left
+ * (tapered evaluation), so a piece's value can shift smoothly as the game goes on.
+ * <p>
+ * Pawns move rarely, so the same pawn structure comes up over and over in a search. Its score is
+ * cached in a small table keyed by ChessBoard.getPawnKey(). Each Evaluator has its own cache, so one
+ * Evaluator shouldn't be used by several threads at once.
+ */
+public final class Evaluator {
+    private static final int PAWN_CACHE_SIZE = 1 << 14;
+
+    private static final long FILE_A = 0x0101010101010101L;
+    private static final int DOUBLED_MIDGAME = -10;
+    private static final int DOUBLED_ENDGAME = -20;
+    private static final int ISOLATED_MIDGAME = -10;
+    private static final int ISOLATED_ENDGAME = -15;
+    //indexed by how many rows the pawn has moved up, from its team's side
+    private static final int[] PASSED_MIDGAME = {0, 0, 5, 10, 20, 35, 60, 0};
+    private static final int[] PASSED_ENDGAME = {0, 0, 10, 20, 40, 70, 110, 0};
+
+    //pawn key, then the middlegame and endgame scores packed into one int, for each cached structure
+    private final long[] pawnKeys = new long[PAWN_CACHE_SIZE];
+    private final int[] pawnScores = new int[PAWN_CACHE_SIZE];
+    private long pawnProbes;
+    private long pawnHits;
+
+    /**
+     * Scores a position
+     *
+     * @param board the position to score
+     * @param team the team to score it for
+     * @return how far ahead the team is, in centipawns
+     */
+    public int evaluate(ChessBoard board, ChessGame.TeamColor team) {
+        int pawns = pawnStructure(board);
+        int midgame = board.getMidgameScore() + midgame(pawns);
+        int endgame = board.getEndgameScore() + endgame(pawns);
+        int phase = Math.min(board.getGamePhase(), ChessBoard.MAX_PHASE);
+        int score = (midgame * phase + endgame * (ChessBoard.MAX_PHASE - phase)) / ChessBoard.MAX_PHASE;
+        return team == ChessGame.TeamColor.WHITE ? score : -score;
+    }
+
+    /**
+     * @return the fraction of pawn structures that were found in the cache
+     */
+    public double getPawnCacheHitRate() {
+        return pawnProbes == 0 ? 0 : (double) pawnHits / pawnProbes;
+    }
+
+    private int pawnStructure(ChessBoard board) {
+        long key = board.getPawnKey();
+        int index = (int) key & (PAWN_CACHE_SIZE - 1);
+        ++pawnProbes;
+        //boards without pawns have key 0, which empty entries match with the right score of 0
+        if (pawnKeys[index] == key) {
+            ++pawnHits;
+            return pawnScores[index];
+        }
+        long white = board.getBitboard(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
+        long black = board.getBitboard(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN);
+        int midgame = 0;
+        int endgame = 0;
+        for (int file = 0; file < 8; ++file) {
+            long fileMask = FILE_A << file;
+            long neighbors = (file > 0 ? fileMask >>> 1 : 0) | (file < 7 ? fileMask << 1 : 0);
+            for (int sign = 1; sign >= -1; sign -= 2) {
+                long ours = sign > 0 ? white : black;
+                int count = Long.bitCount(ours & fileMask);
+                if (count == 0) {
+                    continue;
+                }
+                midgame += sign * (count - 1) * DOUBLED_MIDGAME;
+                endgame += sign * (count - 1) * DOUBLED_ENDGAME;
+                if ((ours & neighbors) == 0) {
+                    midgame += sign * count * ISOLATED_MIDGAME;
+                    endgame += sign * count * ISOLATED_ENDGAME;
+                }
+            }
+        }
+        for (long pawns = white; pawns != 0; pawns &= pawns - 1) {
+            int square = Long.numberOfTrailingZeros(pawns);
+            int row = square / 8;
+            long ahead = row == 7 ? 0 : -1L << ((row + 1) * 8);
+            if ((black & ahead & passedFiles(square)) == 0) {
+                midgame += PASSED_MIDGAME[row];
+                endgame += PASSED_ENDGAME[row];
+            }
+        }
+        for (long pawns = black; pawns != 0; pawns &= pawns - 1) {
+            int square = Long.numberOfTrailingZeros(pawns);
+            int row = square / 8;
+            long ahead = (1L << (row * 8)) - 1;
+            if ((white & ahead & passedFiles(square)) == 0) {
+                midgame -= PASSED_MIDGAME[7 - row];
+                endgame -= PASSED_ENDGAME[7 - row];
+            }
+        }
+        int packed = pack(midgame, endgame);
+        pawnKeys[index] = key;
+        pawnScores[index] = packed;
+        return packed;
+    }
+
+    //the pawn's file and the ones next to it, where an enemy pawn could stop it
+    private static long passedFiles(int square) {
+        int file = square % 8;
+        long fileMask = FILE_A << file;
+        return fileMask | (file > 0 ? fileMask >>> 1 : 0) | (file < 7 ? fileMask << 1 : 0);
+    }
+
+    //the middlegame score in the high 16 bits and the endgame score in the low 16, both signed
+    private static int pack(int midgame, int endgame) {
+        return (midgame << 16) + endgame;
+    }
+
+    private static int midgame(int packed) {
+        return (packed + 0x8000) >> 16;
+    }
+
+    private static int endgame(int packed) {
+        return (short) packed;
+    }
+}
@@ -0,0 +1,122 @@
+package chess.engine;
+
+import chess.ChessGame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Searches with several threads at once (Lazy SMP). Every thread searches the same position with its
+ * own Search, but they all share one TranspositionTable, so what one thread finds saves the others
+ * from searching it. Half of the helper threads start a depth ahead, so the threads spread out over
+ * different parts of the tree instead of all searching the same moves in the same order.
+ * <p>
+ * The calling thread runs the main search, which decides when to stop and whose result is returned;
+ * the helpers run on this object's own threads and are stopped when the main search finishes. Close
+ * it when done to shut the helper threads down. Like Search, it can be used for any number of
+ * searches but only by one thread at a time, and stop() can be called from any thread.
+ */
+public final class ParallelSearch implements AutoCloseable {
+    private final TranspositionTable table;
+    private final Search main;
+    private final Search[] helpers;
+    private final ExecutorService pool;
+
+    /**
+     * @param threads how many threads to search with, counting the calling thread
+     * @param table the table for the threads to share
+     */
+    public ParallelSearch(int threads, TranspositionTable table) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("need at least one thread");
+        }
+        this.table = table;
+        main = new Search(table);
+        helpers = new Search[threads - 1];
+        for (int i = 0; i < helpers.length; ++i) {
+            helpers[i] = new Search(table);
+        }
+        pool = helpers.length == 0 ? null : Executors.newFixedThreadPool(helpers.length, task -> {
+            Thread thread = new Thread(task, "search-helper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return how many threads search, counting the calling thread
+     */
+    public int getThreads() {
+        return helpers.length + 1;
+    }
+
+    /**
+     * Searches a game's current position for the best move with every thread
+     *
+     * @param game the game to search (it isn't changed)
+     * @param limits when to stop searching; only the main search counts towards the node limit
+     * @return the main search's best move and line, with the positions every thread looked at
+     */
+    public SearchResult search(ChessGame game, SearchLimits limits) {
+        //every thread copies the game, so give them one nobody else is changing
+        ChessGame snapshot = new ChessGame(game);
+        table.newSearch();
+        main.clearStop();
+        List<Future<SearchResult>> running = new ArrayList<>(helpers.length);
+        for (int i = 0; i < helpers.length; ++i) {
+            Search helper = helpers[i];
+            int firstDepth = 1 + (i + 1) % 2;
+            helper.clearStop();
+            running.add(pool.submit(() -> helper.run(snapshot, SearchLimits.depth(SearchLimits.MAX_DEPTH), firstDepth, true, null)));
+        }
+
+        SearchResult result;
+        try {
+            result = main.run(snapshot, limits, 1, false, null);
+        } finally {
+            for (Search helper : helpers) {
+                helper.stop();
+            }
+        }
+
+        long nodes = result.nodes();
+        for (int i = 0; i < helpers.length; ++i) {
+            waitFor(running.get(i));
+            nodes += helpers[i].nodes();
+        }
+        return new SearchResult(result.bestMove(), result.score(), result.depth(), nodes, result.timeMillis(),
+                result.principalVariation());
+    }
+
+    /**
+     * Makes a running search return as soon as it can. Safe to call from any thread.
+     */
+    public void stop() {
+        main.stop();
+        for (Search helper : helpers) {
+            helper.stop();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (pool != null) {
+            stop();
+            pool.shutdownNow();
+        }
+    }
+
+    private static void waitFor(Future<SearchResult> helper) {
+        try {
+            helper.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("search helper failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,510 @@
+package chess.engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.Move;
+import chess.MoveList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Looks ahead from a game's current position to find the best move for the team to move.
+ * <p>
+ * The search goes one move deeper at a time (iterative deepening), each time with an alpha-beta
+ * search that assumes the first move it tries is best and only checks that the others are worse
+ * (principal variation search). At the end of each line it keeps looking at captures until the
+ * position is quiet, so it doesn't stop in the middle of a trade, and then scores the position with
+ * an Evaluator. Moves are tried best-first:
+ * the best line from the last depth, then captures of the most valuable piece by the least valuable
+ * one, then quiet moves that caused cutoffs at the same depth (killers) or anywhere (history).
+ * Every position searched goes into a TranspositionTable, which gives a best move to try first when
+ * the position comes up again, and often a score that makes searching it again unnecessary.
+ * <p>
+ * A Search works on its own copy of the game, so the game can change while it runs. One Search can
+ * be used for any number of searches, but not by several threads at once; stop() is the only method
+ * that can be called from another thread.
+ */
+public final class Search {
+    /** The score for checkmating right now. Mating later scores one less for each move (ply) it takes */
+    public static final int MATE = 30000;
+    static final int INFINITY = 32000;
+    //no line the search looks at gets longer than this, quiescence included
+    static final int MAX_PLY = 128;
+
+    //for ordering captures, indexed by PieceType.ordinal(): KING, QUEEN, BISHOP, KNIGHT, ROOK, PAWN
+    private static final int[] PIECE_VALUES = {0, 900, 330, 320, 500, 100};
+    //move ordering scores, highest first
+    private static final int PV_SCORE = 1 << 30;
+    private static final int CAPTURE_SCORE = 1 << 24;
+    private static final int KILLER_SCORE = 1 << 20;
+    private static final int HISTORY_LIMIT = 1 << 16;
+    //how many positions go by between checks of the time and node limits
+    private static final int CHECK_INTERVAL = 1024;
+    /** How big a Search's transposition table is if it isn't given one */
+    public static final int DEFAULT_TABLE_MB = 16;
+
+    private final TranspositionTable table;
+    private final Evaluator evaluator = new Evaluator();
+    private volatile boolean stopped;
+
+    //the position being searched and the team to move in it
+    private ChessGame game;
+    private ChessBoard board;
+    private long nodes;
+    private long deadline;
+    private long nodeLimit;
+    //set once a limit is reached; everything searched after that is thrown away
+    private boolean aborted;
+    private boolean canAbort;
+
+    private final MoveList[] moveLists = new MoveList[MAX_PLY];
+    private final int[][] moveScores = new int[MAX_PLY][];
+    //the best line found from each ply, pv[ply][ply..pvLength[ply]-1]
+    private final int[][] pv = new int[MAX_PLY][MAX_PLY];
+    private final int[] pvLength = new int[MAX_PLY];
+    //the best line from the last depth, tried first while the search is still following it
+    private final int[] previousPv = new int[MAX_PLY];
+    private int previousPvLength;
+    private boolean followingPv;
+    private final int[][] killers = new int[MAX_PLY][2];
+    //indexed by team, then from and to square
+    private final int[][][] history = new int[2][64][64];
+    //keys of the positions played before the search, then the positions along the current line,
+    //for spotting repetitions
+    private long[] keys = new long[MAX_PLY];
+    private int keyCount;
+
+    public Search() {
+        this(new TranspositionTable(DEFAULT_TABLE_MB));
+    }
+
+    /**
+     * Creates a search that keeps what it finds in the given table, which other searches can share
+     */
+    public Search(TranspositionTable table) {
+        this.table = table;
+        for (int ply = 0; ply < MAX_PLY; ++ply) {
+            moveLists[ply] = new MoveList();
+            moveScores[ply] = new int[256];
+        }
+    }
+
+    /**
+     * Searches a game's current position for the best move
+     *
+     * @param game the game to search (it isn't changed)
+     * @param limits when to stop searching
+     * @return the best move and line found at the deepest depth the search finished
+     */
+    public SearchResult search(ChessGame game, SearchLimits limits) {
+        return search(game, limits, null);
+    }
+
+    /**
+     * Searches a game's current position for the best move, reporting what it has found so far each
+     * time it finishes a depth
+     *
+     * @param game the game to search (it isn't changed)
+     * @param limits when to stop searching
+     * @param progress called on the searching thread with the result of each depth as it finishes
+     * @return the best move and line found at the deepest depth the search finished
+     */
+    public SearchResult search(ChessGame game, SearchLimits limits, Consumer<SearchResult> progress) {
+        stopped = false;
+        table.newSearch();
+        return run(game, limits, 1, false, progress);
+    }
+
+    /**
+     * Runs the search without starting a new search in the table or clearing stop(), for a search that
+     * shares its table with others
+     *
+     * @param firstDepth the depth to start deepening from
+     * @param helper true if the search's result won't be used, so it can stop before finishing a depth
+     * @param progress called with the result of each depth, or null
+     */
+    SearchResult run(ChessGame game, SearchLimits limits, int firstDepth, boolean helper,
+                     Consumer<SearchResult> progress) {
+        long start = System.nanoTime();
+        prepare(game, limits, start);
+        canAbort = helper;
+
+        SearchResult result = new SearchResult(null, 0, 0, 0, 0, List.of());
+        for (int depth = firstDepth; depth <= limits.depth(); ++depth) {
+            followingPv = true;
+            int score = negamax(depth, 0, -INFINITY, INFINITY);
+            if (aborted) {
+                break;
+            }
+            long elapsed = (System.nanoTime() - start) / 1_000_000;
+            result = new SearchResult(pvLength[0] == 0 ? null : Move.toChessMove(pv[0][0]), score, depth, nodes,
+                    elapsed, principalVariation());
+            previousPvLength = pvLength[0];
+            System.arraycopy(pv[0], 0, previousPv, 0, previousPvLength);
+            canAbort = true;
+            if (progress != null) {
+                progress.accept(result);
+            }
+
+            //no moves, or only one: there's nothing to decide
+            if (moveLists[0].size() <= 1) {
+                break;
+            }
+            //the next depth takes a few times as long as this one, so it won't finish in the time left
+            if (limits.timeMillis() > 0 && elapsed * 2 > limits.timeMillis()) {
+                break;
+            }
+        }
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+        return new SearchResult(result.bestMove(), result.score(), result.depth(), nodes, elapsed,
+                result.principalVariation());
+    }
+
+    /**
+     * Makes a running search return as soon as it can, with the best move from the last depth it finished.
+     * Safe to call from any thread.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    //lets a search be stopped before run() is called, without the stop being lost
+    void clearStop() {
+        stopped = false;
+    }
+
+    //how many positions the last search looked at
+    long nodes() {
+        return nodes;
+    }
+
+    private void prepare(ChessGame game, SearchLimits limits, long start) {
+        this.game = new ChessGame(game);
+        board = this.game.getBoard();
+        nodes = 0;
+        deadline = limits.timeMillis() > 0 ? start + limits.timeMillis() * 1_000_000 : 0;
+        nodeLimit = limits.nodes();
+        aborted = false;
+        previousPvLength = 0;
+
+        for (int[] moves : killers) {
+            moves[0] = Move.NONE;
+            moves[1] = Move.NONE;
+        }
+        //what was learned last search still mostly applies, but shouldn't outweigh this one
+        for (int[][] team : history) {
+            for (int[] from : team) {
+                for (int to = 0; to < from.length; ++to) {
+                    from[to] /= 2;
+                }
+            }
+        }
+
+        long[] previous = this.game.getPreviousPositions();
+        if (keys.length < previous.length + MAX_PLY) {
+            keys = new long[previous.length + MAX_PLY];
+        }
+        System.arraycopy(previous, 0, keys, 0, previous.length);
+        keyCount = previous.length;
+    }
+
+    private int negamax(int depth, int ply, int alpha, int beta) {
+        pvLength[ply] = ply;
+        if (ply > 0 && isDraw()) {
+            return 0;
+        }
+        if (depth <= 0 || ply >= MAX_PLY - 1) {
+            return quiesce(ply, alpha, beta);
+        }
+        countNode();
+
+        long key = game.getZobristKey();
+        long entry = table.probe(key);
+        //off the best line, an earlier search at least this deep settles the position (on the best line
+        //it would cut the line short)
+        if (entry != 0 && ply > 0 && beta - alpha == 1 && TranspositionTable.depth(entry) >= depth) {
+            int score = scoreFromTable(TranspositionTable.score(entry), ply);
+            int bound = TranspositionTable.bound(entry);
+            if (bound == TranspositionTable.EXACT
+                    || (bound == TranspositionTable.LOWER && score >= beta)
+                    || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                return score;
+            }
+        }
+        int originalAlpha = alpha;
+        int tableDepth = depth;
+
+        ChessGame.TeamColor team = game.getTeamTurn();
+        boolean inCheck = board.isInCheck(team);
+        if (inCheck) {
+            //look further into checks, since they force the reply
+            ++depth;
+        }
+        MoveList moves = moveLists[ply];
+        game.generateMoves(moves);
+        if (moves.isEmpty()) {
+            return inCheck ? -MATE + ply : 0;
+        }
+        int pvMove = followingPv && ply < previousPvLength ? previousPv[ply] : Move.NONE;
+        scoreMoves(moves, ply, pvMove, TranspositionTable.move(entry), false);
+
+        int best = -INFINITY;
+        int bestMove = Move.NONE;
+        for (int i = 0; i < moves.size(); ++i) {
+            int move = pickMove(moves, ply, i);
+            followingPv = move == pvMove;
+            play(move);
+            int score;
+            if (i == 0) {
+                score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+            } else {
+                //prove the move is no better than the best so far, and only search it fully if it is
+                score = -negamax(depth - 1, ply + 1, -alpha - 1, -alpha);
+                if (score > alpha && score < beta) {
+                    score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+                }
+            }
+            undo();
+            if (aborted) {
+                return 0;
+            }
+
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    bestMove = move;
+                    updatePv(ply, move);
+                    if (alpha >= beta) {
+                        if (!isNoisy(move)) {
+                            rememberCutoff(team, ply, depth, move);
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+
+        int bound = best >= beta ? TranspositionTable.LOWER
+                : best > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+        table.store(key, bestMove, scoreToTable(best, ply), tableDepth, bound);
+        return best;
+    }
+
+    //searches only captures and promotions until the position is quiet, unless in check
+    private int quiesce(int ply, int alpha, int beta) {
+        pvLength[ply] = ply;
+        countNode();
+        if (aborted) {
+            return 0;
+        }
+        ChessGame.TeamColor team = game.getTeamTurn();
+        boolean inCheck = board.isInCheck(team);
+        if (ply >= MAX_PLY - 1) {
+            return inCheck ? 0 : evaluate();
+        }
+        int best = -INFINITY;
+        if (!inCheck) {
+            //the team to move doesn't have to capture, so it can count on at least the current score
+            best = evaluate();
+            if (best >= beta) {
+                return best;
+            }
+            alpha = Math.max(alpha, best);
+        }
+
+        MoveList moves = moveLists[ply];
+        game.generateMoves(moves);
+        if (inCheck && moves.isEmpty()) {
+            return -MATE + ply;
+        }
+        scoreMoves(moves, ply, Move.NONE, Move.NONE, !inCheck);
+
+        for (int i = 0; i < moves.size(); ++i) {
+            int move = pickMove(moves, ply, i);
+            if (!inCheck && !isNoisy(move)) {
+                //quiet moves are sorted last, so there are no captures left
+                break;
+            }
+            play(move);
+            int score = -quiesce(ply + 1, -beta, -alpha);
+            undo();
+            if (aborted) {
+                return 0;
+            }
+            if (score > best) {
+                best = score;
+                if (score > alpha) {
+                    alpha = score;
+                    if (alpha >= beta) {
+                        break;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    private int evaluate() {
+        return evaluator.evaluate(board, game.getTeamTurn());
+    }
+
+    //a repetition, the fifty move rule, or not enough material to mate; one repetition is enough to
+    //call it a draw, since the search would just repeat again
+    private boolean isDraw() {
+        if (board.getHalfmoveClock() >= 100 || board.hasInsufficientMaterial()) {
+            return true;
+        }
+        long key = game.getZobristKey();
+        int oldest = Math.max(0, keyCount - board.getHalfmoveClock());
+        for (int i = keyCount - 2; i >= oldest; i -= 2) {
+            if (keys[i] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void play(int move) {
+        keys[keyCount++] = game.getZobristKey();
+        board.makeMove(move);
+        game.setTeamTurn(game.getTeamTurn().opponent());
+    }
+
+    private void undo() {
+        board.unmakeMove();
+        game.setTeamTurn(game.getTeamTurn().opponent());
+        --keyCount;
+    }
+
+    private void countNode() {
+        if (++nodes % CHECK_INTERVAL == 0 && canAbort) {
+            aborted = stopped
+                    || (nodeLimit > 0 && nodes >= nodeLimit)
+                    || (deadline > 0 && System.nanoTime() >= deadline);
+        }
+    }
+
+    private void scoreMoves(MoveList moves, int ply, int pvMove, int hashMove, boolean noisyOnly) {
+        int[] scores = moveScores[ply];
+        int team = game.getTeamTurn().ordinal();
+        for (int i = 0; i < moves.size(); ++i) {
+            int move = moves.get(i);
+            int score;
+            if (move == pvMove) {
+                score = PV_SCORE;
+            } else if (move == hashMove) {
+                score = PV_SCORE - 1;
+            } else if (isNoisy(move)) {
+                //most valuable victim, least valuable attacker
+                score = CAPTURE_SCORE + victimValue(move) * 8 - attackerValue(move) / 100;
+                if (Move.isPromotion(move)) {
+                    score += PIECE_VALUES[Move.promotionPiece(move).ordinal()];
+                }
+            } else if (noisyOnly) {
+                score = 0;
+            } else if (move == killers[ply][0]) {
+                score = KILLER_SCORE + 1;
+            } else if (move == killers[ply][1]) {
+                score = KILLER_SCORE;
+            } else {
+                score = history[team][Move.from(move)][Move.to(move)];
+            }
+            scores[i] = score;
+        }
+    }
+
+    //moves the best scored of the moves not tried yet to the given index
+    private int pickMove(MoveList moves, int ply, int index) {
+        int[] scores = moveScores[ply];
+        int best = index;
+        for (int i = index + 1; i < moves.size(); ++i) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        if (best != index) {
+            moves.swap(index, best);
+            int temp = scores[index];
+            scores[index] = scores[best];
+            scores[best] = temp;
+        }
+        return moves.get(index);
+    }
+
+    private int victimValue(int move) {
+        if (!Move.isCapture(move)) {
+            return 0;
+        }
+        if (Move.flags(move) == Move.EN_PASSANT) {
+            return PIECE_VALUES[ChessPiece.PieceType.PAWN.ordinal()];
+        }
+        return PIECE_VALUES[board.getPiece(Move.to(move)).getPieceType().ordinal()];
+    }
+
+    private int attackerValue(int move) {
+        return PIECE_VALUES[board.getPiece(Move.from(move)).getPieceType().ordinal()];
+    }
+
+    private static boolean isNoisy(int move) {
+        return Move.isCapture(move) || Move.isPromotion(move);
+    }
+
+    private void rememberCutoff(ChessGame.TeamColor team, int ply, int depth, int move) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        int[][] teamHistory = history[team.ordinal()];
+        teamHistory[Move.from(move)][Move.to(move)] += depth * depth;
+        if (teamHistory[Move.from(move)][Move.to(move)] >= HISTORY_LIMIT) {
+            //keep history scores below the killers
+            for (int[] from : teamHistory) {
+                for (int to = 0; to < from.length; ++to) {
+                    from[to] /= 2;
+                }
+            }
+        }
+    }
+
+    //mate scores count plies from the root, but the table has to hold them counted from the position
+    //itself, since the same position can come up at any ply
+    private static int scoreToTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) {
+            return score + ply;
+        }
+        if (score <= -MATE + MAX_PLY) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int scoreFromTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) {
+            return score - ply;
+        }
+        if (score <= -MATE + MAX_PLY) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    private void updatePv(int ply, int move) {
+        pv[ply][ply] = move;
+        int length = pvLength[ply + 1];
+        System.arraycopy(pv[ply + 1], ply + 1, pv[ply], ply + 1, length - ply - 1);
+        pvLength[ply] = Math.max(length, ply + 1);
+    }
+
+    private List<ChessMove> principalVariation() {
+        List<ChessMove> line = new ArrayList<>(pvLength[0]);
+        for (int i = 0; i < pvLength[0]; ++i) {
+            line.add(Move.toChessMove(pv[0][i]));
+        }
+        return line;
+    }
+}
@@ -0,0 +1,43 @@
+package chess.engine;
+
+/**
+ * How long a search is allowed to run. The search stops at whichever limit it reaches first, but it
+ * always finishes at least a depth 1 search so it has a move to give.
+ *
+ * @param depth the deepest iteration to search, from 1 to MAX_DEPTH
+ * @param timeMillis the most time to spend, in milliseconds, or 0 for no limit
+ * @param nodes the most positions to look at, or 0 for no limit
+ */
+public record SearchLimits(int depth, long timeMillis, long nodes) {
+    public static final int MAX_DEPTH = 64;
+
+    public SearchLimits {
+        if (depth < 1 || depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("depth must be between 1 and " + MAX_DEPTH);
+        }
+        if (timeMillis < 0 || nodes < 0) {
+            throw new IllegalArgumentException("limits can't be negative");
+        }
+    }
+
+    /**
+     * @return limits that search to the given depth, however long it takes
+     */
+    public static SearchLimits depth(int depth) {
+        return new SearchLimits(depth, 0, 0);
+    }
+
+    /**
+     * @return limits that search as deep as they can in the given time
+     */
+    public static SearchLimits time(long timeMillis) {
+        return new SearchLimits(MAX_DEPTH, timeMillis, 0);
+    }
+
+    /**
+     * @return limits that search as deep as they can while looking at no more than the given number of positions
+     */
+    public static SearchLimits nodes(long nodes) {
+        return new SearchLimits(MAX_DEPTH, 0, nodes);
+    }
+}
@@ -0,0 +1,45 @@
+package chess.engine;
+
+import chess.ChessMove;
+
+import java.util.List;
+
+/**
+ * What a search found, as of the last depth it finished.
+ *
+ * @param bestMove the move to play, or null if the team to move has no legal moves
+ * @param score how good the position is for the team to move, in centipawns (see isMate())
+ * @param depth the deepest iteration the search finished
+ * @param nodes how many positions the search looked at
+ * @param timeMillis how long the search took
+ * @param principalVariation the moves the search expects both teams to play, starting with bestMove
+ */
+public record SearchResult(ChessMove bestMove, int score, int depth, long nodes, long timeMillis,
+                           List<ChessMove> principalVariation) {
+
+    /**
+     * @return true if the score means one team can force checkmate
+     */
+    public boolean isMate() {
+        return Math.abs(score) >= Search.MATE - Search.MAX_PLY;
+    }
+
+    /**
+     * @return how many moves until checkmate: positive if the team to move delivers it, negative if it
+     * gets checkmated, and 0 if the score isn't a mate score
+     */
+    public int mateIn() {
+        if (!isMate()) {
+            return 0;
+        }
+        int plies = Search.MATE - Math.abs(score);
+        return score > 0 ? (plies + 1) / 2 : -(plies / 2);
+    }
+
+    /**
+     * @return the number of positions looked at per second
+     */
+    public long nodesPerSecond() {
+        return nodes * 1000 / Math.max(1, timeMillis);
+    }
+}
@@ -0,0 +1,169 @@
+package chess.engine;
+
+import chess.Move;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-size hash table of positions the search has already looked at, so it doesn't have to
+ * search the same position again when it comes up by a different move order, or at the next depth.
+ * <p>
+ * Each entry is two longs in one array: the position's key XORed with its data, then the data
+ * itself. The data packs the best move, score, depth, and bound (see the accessors below) into a
+ * single long. Any number of threads can read and write the table at once without locking: if two
+ * threads write the same entry at the same time, the key and data that end up there won't match, so
+ * the XOR won't give back the key and the entry is treated as missing. Losing an entry now and then
+ * only costs a little search time.
+ * <p>
+ * The number of entries is a power of two, so the key's low bits pick an entry, and the table
+ * never grows past the size it was given.
+ */
+public final class TranspositionTable {
+    /** Bounds: the score is at most (UPPER), at least (LOWER), or exactly (EXACT) the stored score */
+    public static final int UPPER = 1;
+    public static final int LOWER = 2;
+    public static final int EXACT = 3;
+
+    static final int BYTES_PER_ENTRY = 2 * Long.BYTES;
+    private static final int MAX_DEPTH = 0xFF;
+    private static final int GENERATIONS = 0x100;
+
+    //key ^ data, then data, for each entry
+    final long[] table;
+    private final int mask;
+    //which search the table is being used for, so entries left over from earlier searches get replaced first
+    private volatile int generation;
+
+    /**
+     * Creates a table that takes up no more than the given number of megabytes
+     */
+    public TranspositionTable(int megabytes) {
+        if (megabytes < 1) {
+            throw new IllegalArgumentException("size must be at least 1 MB");
+        }
+        long entries = Long.highestOneBit((long) megabytes * 1024 * 1024 / BYTES_PER_ENTRY);
+        //an array can't have 2^31 elements, so 2^29 entries (2^30 longs) is as big as it gets
+        entries = Math.min(entries, 1L << 29);
+        table = new long[(int) entries * 2];
+        mask = (int) entries - 1;
+    }
+
+    /**
+     * @return the number of entries the table can hold
+     */
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @return how much memory the entries take up
+     */
+    public long sizeInBytes() {
+        return (long) table.length * Long.BYTES;
+    }
+
+    /**
+     * Looks a position up
+     *
+     * @param key the position's Zobrist key
+     * @return the entry's data, to be read with move(), score(), depth(), and bound(), or 0 if the
+     * position isn't in the table
+     */
+    public long probe(long key) {
+        int index = index(key);
+        long data = table[index + 1];
+        if ((table[index] ^ data) != key || bound(data) == 0) {
+            return 0L;
+        }
+        return data;
+    }
+
+    /**
+     * Saves what a search found about a position, replacing what was there unless it came from a deeper
+     * search of a different position during the current search
+     *
+     * @param key the position's Zobrist key
+     * @param move the best move found, or Move.NONE
+     * @param score the score found
+     * @param depth how deep the position was searched
+     * @param bound how the score relates to the position's real score: UPPER, LOWER, or EXACT
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        int index = index(key);
+        long oldData = table[index + 1];
+        boolean samePosition = (table[index] ^ oldData) == key;
+        if (!samePosition && bound(oldData) != 0 && generation(oldData) == generation && depth < depth(oldData)) {
+            return;
+        }
+        if (samePosition && move == Move.NONE) {
+            //a fail-low search has no best move, but an older one is still worth trying first
+            move = move(oldData);
+        }
+        long data = pack(move, score, depth, bound, generation);
+        table[index] = key ^ data;
+        table[index + 1] = data;
+    }
+
+    /**
+     * Starts a new search, so entries from earlier searches are replaced before ones from this one
+     */
+    public void newSearch() {
+        generation = (generation + 1) % GENERATIONS;
+    }
+
+    /**
+     * Empties the table
+     */
+    public void clear() {
+        Arrays.fill(table, 0L);
+    }
+
+    /**
+     * @return how full the table is with entries from the current search, in thousandths, estimated
+     * from the first thousand entries
+     */
+    public int hashfull() {
+        int sample = Math.min(1000, capacity());
+        int used = 0;
+        for (int i = 0; i < sample; ++i) {
+            long data = table[i * 2 + 1];
+            if (bound(data) != 0 && generation(data) == generation) {
+                ++used;
+            }
+        }
+        return used * 1000 / sample;
+    }
+
+    public static int move(long data) {
+        return (int) (data & 0xFFFF);
+    }
+
+    public static int score(long data) {
+        return (short) (data >>> 16);
+    }
+
+    public static int depth(long data) {
+        return (int) ((data >>> 32) & MAX_DEPTH);
+    }
+
+    public static int bound(long data) {
+        return (int) ((data >>> 40) & 3);
+    }
+
+    private static int generation(long data) {
+        return (int) ((data >>> 42) & (GENERATIONS - 1));
+    }
+
+    //bits 0-15 move, 16-31 score, 32-39 depth, 40-41 bound, 42-49 generation
+    static long pack(int move, int score, int depth, int bound, int generation) {
+        return (move & 0xFFFFL)
+                | ((score & 0xFFFFL) << 16)
+                | ((long) Math.min(Math.max(depth, 0), MAX_DEPTH) << 32)
+                | ((long) bound << 40)
+                | ((long) generation << 42);
+    }
+
+    private int index(long key) {
+        return ((int) key & mask) * 2;
+    }
+}
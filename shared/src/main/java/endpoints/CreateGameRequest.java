@@ -1,4 +1,10 @@
 package endpoints;
 
-public record CreateGameRequest(String authToken, String gameName) {
+/**
+ * botColor and botLevel are optional: if they're given, a bot of that level takes that seat
+ */
+public record CreateGameRequest(String authToken, String gameName, String botColor, Integer botLevel) {
+    public CreateGameRequest(String authToken, String gameName) {
+        this(authToken, gameName, null, null);
+    }
 }
@@ -1,4 +1,10 @@
 package endpoints;
 
-public record JoinGameRequest(String authToken, String playerColor, int gameID) {
+/**
+ * botLevel is optional: if it's given, a bot of that level takes the seat instead of the user
+ */
+public record JoinGameRequest(String authToken, String playerColor, int gameID, Integer botLevel) {
+    public JoinGameRequest(String authToken, String playerColor, int gameID) {
+        this(authToken, playerColor, gameID, null);
+    }
 }
@@ -1,4 +1,17 @@
 package endpoints;
 
-public record ListGamesRequest(String authToken) {
+/**
+ * Games are listed a page at a time, in order of gameID. Everything but the authToken is optional:
+ * after is the next value of the previous page, limit is the most games to list, and each filter
+ * that's true leaves out the games that don't match it.
+ *
+ * @param openSeats only games with a seat nobody has taken
+ * @param mine only games the user is playing in
+ * @param inProgress only games that aren't over
+ */
+public record ListGamesRequest(String authToken, Integer after, Integer limit, boolean openSeats, boolean mine,
+                               boolean inProgress) {
+    public ListGamesRequest(String authToken) {
+        this(authToken, null, null, false, false, false);
+    }
 }
@@ -1,8 +1,11 @@
 package endpoints;
 
-import model.GameData;
+import model.GameSummary;
 
 import java.util.Collection;
 
-public record ListGamesResult(Collection<GameData> games) {
+/**
+ * next is what to list the games after to get the next page, or null if this is the last one
+ */
+public record ListGamesResult(Collection<GameSummary> games, Integer next) {
 }
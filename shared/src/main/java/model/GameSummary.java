@@ -0,0 +1,7 @@
+package model;
+
+/**
+ * What the lobby shows about a game: everything in GameData but the game itself
+ */
+public record GameSummary(int gameID, String whiteUsername, String blackUsername, String gameName, boolean gameOver) {
+}
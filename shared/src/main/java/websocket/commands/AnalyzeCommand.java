@@ -0,0 +1,19 @@
+package websocket.commands;
+
+/**
+ * Asks the server to analyze the game's current position, sending back an AnalysisMessage each time
+ * it has searched a move deeper. Analyzing again replaces the last analysis.
+ */
+public class AnalyzeCommand extends UserGameCommand {
+    //how long to analyze for; the server's default if null
+    Long timeMillis;
+
+    public AnalyzeCommand(String authToken, Integer gameID, Long timeMillis) {
+        super(CommandType.ANALYZE, authToken, gameID);
+        this.timeMillis = timeMillis;
+    }
+
+    public Long getTimeMillis() {
+        return timeMillis;
+    }
+}
@@ -0,0 +1,64 @@
+package websocket.messages;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.engine.SearchResult;
+
+import java.util.List;
+
+/**
+ * What an analysis of a game's position has found so far. Scores are from white's side, so they can be
+ * shown on an analysis bar without knowing whose turn it is.
+ */
+public class AnalysisMessage extends ServerMessage {
+    int gameID;
+    int depth;
+    //centipawns white is ahead by
+    int score;
+    //moves until white mates (positive) or gets mated (negative), or null if no mate has been found
+    Integer mateIn;
+    List<ChessMove> principalVariation;
+    long nodes;
+    //true for the last message of the analysis
+    boolean done;
+
+    public AnalysisMessage(int gameID, SearchResult result, ChessGame.TeamColor teamToMove, boolean done) {
+        super(ServerMessageType.ANALYSIS);
+        int sign = teamToMove == ChessGame.TeamColor.WHITE ? 1 : -1;
+        this.gameID = gameID;
+        this.depth = result.depth();
+        this.score = sign * result.score();
+        this.mateIn = result.isMate() ? sign * result.mateIn() : null;
+        this.principalVariation = result.principalVariation();
+        this.nodes = result.nodes();
+        this.done = done;
+    }
+
+    public int getGameID() {
+        return gameID;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public Integer getMateIn() {
+        return mateIn;
+    }
+
+    public List<ChessMove> getPrincipalVariation() {
+        return principalVariation;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+}
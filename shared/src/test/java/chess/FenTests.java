@@ -0,0 +1,87 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+
+public class FenTests {
+    private static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    @Test
+    @DisplayName("Starting Position")
+    public void startingPosition() {
+        Assertions.assertEquals(START, new ChessGame().toFen());
+        ChessGame game = ChessGame.fromFen(START);
+        Assertions.assertEquals(new ChessGame().getBoard(), game.getBoard());
+        Assertions.assertEquals(new ChessGame().getZobristKey(), game.getZobristKey());
+    }
+
+    @Test
+    @DisplayName("Standard Positions Round Trip")
+    public void roundTrip() {
+        for (Perft.Position position : Perft.Position.values()) {
+            ChessGame game = position.newGame();
+            Assertions.assertEquals(position.fen(), game.toFen());
+            Assertions.assertEquals(position.fen(), game.getBoard().toFen(game.getTeamTurn()));
+            Assertions.assertEquals(game.getBoard(), ChessBoard.fromFen(position.fen()));
+        }
+    }
+
+    @Test
+    @DisplayName("Header After Moves")
+    public void headerAfterMoves() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        play(game, "e2e4", "g8f6", "e4e5", "d7d5", "e1e2");
+        Assertions.assertEquals("rnbqkb1r/ppp1pppp/5n2/3pP3/8/8/PPPPKPPP/RNBQ1BNR b kq - 1 3", game.toFen());
+
+        play(game, "f6g4", "d2d4", "f7f5");
+        String fen = game.toFen();
+        Assertions.assertEquals("rnbqkb1r/ppp1p1pp/8/3pPp2/3P2n1/8/PPP1KPPP/RNBQ1BNR w kq f6 0 5", fen);
+        ChessGame copy = ChessGame.fromFen(fen);
+        Assertions.assertEquals(game.getZobristKey(), copy.getZobristKey());
+        Assertions.assertEquals(game.getBoard().getHalfmoveClock(), copy.getBoard().getHalfmoveClock());
+        Assertions.assertEquals(game.getBoard().getFullmoveNumber(), copy.getBoard().getFullmoveNumber());
+        Assertions.assertEquals(Perft.perft(game, 3), Perft.perft(copy, 3));
+    }
+
+    @Test
+    @DisplayName("Rights That Can't Be Used Are Dropped")
+    public void unusableRightsDropped() {
+        //no rook on h1, and no black pawn beside the e4 pawn to capture it
+        ChessGame game = ChessGame.fromFen("r3k2r/8/8/8/4P3/8/8/R3K3 b KQkq e3");
+        Assertions.assertEquals("r3k2r/8/8/8/4P3/8/8/R3K3 b Qkq - 0 1", game.toFen());
+    }
+
+    @Test
+    @DisplayName("Game Over Position")
+    public void gameOverPosition() {
+        ChessGame mated = ChessGame.fromFen("rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w KQkq - 1 3");
+        Assertions.assertTrue(mated.isInCheckmate(ChessGame.TeamColor.WHITE));
+        Assertions.assertTrue(mated.getGameOver());
+    }
+
+    @Test
+    @DisplayName("Malformed FEN")
+    public void malformed() {
+        String[] bad = {
+                "",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/9/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                "rnbqkbnr/ppppxppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR x KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQxq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq e3 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 0",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1 extra",
+        };
+        for (String fen : bad) {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen(fen), fen);
+        }
+    }
+
+    private static void play(ChessGame game, String... moves) throws InvalidMoveException {
+        for (String move : moves) {
+            game.makeMove(new ChessMove(ChessPosition.of(move.charAt(1) - '0', move.charAt(0) - 'a' + 1),
+                    ChessPosition.of(move.charAt(3) - '0', move.charAt(2) - 'a' + 1), null));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public class GameCodecTests {
+    private static final Gson GSON = new Gson();
+
+    @Test
+    @DisplayName("Standard Positions Round Trip")
+    public void standardPositions() {
+        for (Perft.Position position : Perft.Position.values()) {
+            ChessGame game = position.newGame();
+            assertSameGame(game, GameCodec.decode(GameCodec.encode(game)));
+        }
+    }
+
+    @Test
+    @DisplayName("Game In Progress Round Trip")
+    public void gameInProgress() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        play(game, "e2e4", "g8f6", "e4e5", "d7d5");
+        ChessGame decoded = GameCodec.decode(GameCodec.encode(game));
+        assertSameGame(game, decoded);
+        Assertions.assertEquals(ChessPosition.of(6, 4), decoded.getBoard().getEnPassantPosition());
+
+        //the position after the last move comes up a second time, and then a third after decoding, which
+        //is only spotted if the earlier positions came through too
+        play(game, "g1f3", "f6g8", "f3g1", "g8f6", "g1f3", "f6g8", "f3g1", "g8f6");
+        decoded = GameCodec.decode(GameCodec.encode(game));
+        assertSameGame(game, decoded);
+        play(decoded, "g1f3", "f6g8", "f3g1", "g8f6");
+        Assertions.assertTrue(decoded.getStatus().getDrawReasons().contains(GameStatus.DrawReason.THREEFOLD_REPETITION));
+    }
+
+    @Test
+    @DisplayName("Finished Game Round Trip")
+    public void finishedGame() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        play(game, "f2f3", "e7e5", "g2g4", "d8h4");
+        Assertions.assertTrue(game.getGameOver());
+        assertSameGame(game, GameCodec.decode(GameCodec.encode(game)));
+    }
+
+    @Test
+    @DisplayName("Much Smaller Than JSON")
+    public void smallerThanJson() {
+        for (Perft.Position position : Perft.Position.values()) {
+            ChessGame game = position.newGame();
+            int binary = GameCodec.encode(game).length;
+            int json = GSON.toJson(game).getBytes(StandardCharsets.UTF_8).length;
+            Assertions.assertTrue(binary * 10 < json, binary + " bytes vs " + json);
+        }
+    }
+
+    @Test
+    @DisplayName("Bad Bytes")
+    public void badBytes() {
+        byte[] encoded = GameCodec.encode(new ChessGame());
+        byte[] json = GSON.toJson(new ChessGame()).getBytes(StandardCharsets.UTF_8);
+        byte[] newerVersion = encoded.clone();
+        newerVersion[0] = GameCodec.VERSION + 1;
+        for (byte[] bad : new byte[][] {new byte[0], json, newerVersion, Arrays.copyOf(encoded, encoded.length - 1),
+                Arrays.copyOf(encoded, encoded.length + 1)}) {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> GameCodec.decode(bad));
+        }
+    }
+
+    private static void assertSameGame(ChessGame expected, ChessGame actual) {
+        Assertions.assertEquals(expected.toFen(), actual.toFen());
+        Assertions.assertEquals(expected.getBoard(), actual.getBoard());
+        Assertions.assertEquals(expected.getZobristKey(), actual.getZobristKey());
+        Assertions.assertEquals(expected.getGameOver(), actual.getGameOver());
+        Assertions.assertArrayEquals(expected.getPreviousPositions(), actual.getPreviousPositions());
+    }
+
+    private static void play(ChessGame game, String... moves) throws InvalidMoveException {
+        for (String move : moves) {
+            game.makeMove(new ChessMove(ChessPosition.of(move.charAt(1) - '0', move.charAt(0) - 'a' + 1),
+                    ChessPosition.of(move.charAt(3) - '0', move.charAt(2) - 'a' + 1), null));
+        }
+    }
+}
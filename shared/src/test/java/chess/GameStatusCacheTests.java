@@ -0,0 +1,60 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+
+public class GameStatusCacheTests {
+
+    @Test
+    @DisplayName("Status Reused Until Position Changes")
+    public void statusReused() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        GameStatus first = game.getStatus();
+        Assertions.assertSame(first, game.getStatus());
+        Assertions.assertEquals(20, first.getLegalMoveCount());
+
+        game.makeMove(new ChessMove(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null));
+        GameStatus second = game.getStatus();
+        Assertions.assertNotSame(first, second);
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, second.getTeam());
+
+        game.setTeamTurn(ChessGame.TeamColor.WHITE);
+        Assertions.assertEquals(ChessGame.TeamColor.WHITE, game.getStatus().getTeam());
+    }
+
+    @Test
+    @DisplayName("Threefold Repetition")
+    public void threefoldRepetition() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        for (int i = 0; i < 2; ++i) {
+            Assertions.assertTrue(game.getStatus().getDrawReasons().isEmpty());
+            move(game, 1, 7, 3, 6);
+            move(game, 8, 7, 6, 6);
+            move(game, 3, 6, 1, 7);
+            move(game, 6, 6, 8, 7);
+        }
+        Assertions.assertTrue(game.getStatus().getDrawReasons().contains(GameStatus.DrawReason.THREEFOLD_REPETITION));
+        Assertions.assertFalse(game.getGameOver());
+    }
+
+    @Test
+    @DisplayName("Insufficient Material")
+    public void insufficientMaterial() {
+        ChessBoard board = new ChessBoard();
+        board.addPiece(ChessPosition.of(1, 1), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        board.addPiece(ChessPosition.of(8, 8), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        board.addPiece(ChessPosition.of(1, 3), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP));
+        board.addPiece(ChessPosition.of(8, 2), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        Assertions.assertTrue(game.getStatus().getDrawReasons().contains(GameStatus.DrawReason.INSUFFICIENT_MATERIAL));
+
+        //bishops on both colors can checkmate
+        board.addPiece(ChessPosition.of(8, 1), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP));
+        Assertions.assertTrue(game.getStatus().getDrawReasons().isEmpty());
+    }
+
+    private static void move(ChessGame game, int startRow, int startCol, int endRow, int endCol)
+            throws InvalidMoveException {
+        game.makeMove(new ChessMove(ChessPosition.of(startRow, startCol), ChessPosition.of(endRow, endCol), null));
+    }
+}
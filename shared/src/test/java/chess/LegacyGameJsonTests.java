@@ -0,0 +1,57 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+public class LegacyGameJsonTests {
+    //each fixture was written by Gson from the original, array-backed classes, after the moves given
+
+    @Test
+    @DisplayName("First Move")
+    public void firstMove() throws IOException {
+        //e2e4: black to move, and nothing can take e4 en passant
+        assertMigrates("e4", "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1", false);
+    }
+
+    @Test
+    @DisplayName("Castling And En Passant")
+    public void castlingAndEnPassant() throws IOException {
+        //g1f3 a7a6 h1g1 a6a5 g1h1 b7b6 e2e4 b6b5 e4e5 d7d5: the h1 rook went out and back, so white can
+        //only castle queenside, and e5 can take d5 en passant
+        assertMigrates("en-passant", "rnbqkbnr/2p1pppp/8/pp1pP3/8/5N2/PPPP1PPP/RNBQKB1R w Qkq d6 0 1", false);
+    }
+
+    @Test
+    @DisplayName("Finished Game")
+    public void finishedGame() throws IOException {
+        //fool's mate
+        assertMigrates("fools-mate", "rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w KQkq - 0 1", true);
+    }
+
+    @Test
+    @DisplayName("Only Old Layout Matches")
+    public void onlyOldLayout() throws IOException {
+        Assertions.assertTrue(LegacyGameJson.matches(fixture("e4")));
+        Assertions.assertFalse(LegacyGameJson.matches(new Gson().toJson(new ChessGame())));
+        Assertions.assertFalse(LegacyGameJson.matches("not json"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> LegacyGameJson.read("{\"board\":{\"board\":[[]]}}"));
+    }
+
+    //reads the fixture, and checks it survives being packed the way it's migrated
+    private static void assertMigrates(String name, String fen, boolean gameOver) throws IOException {
+        ChessGame game = GameCodec.decode(GameCodec.encode(LegacyGameJson.read(fixture(name))));
+        Assertions.assertEquals(fen, game.toFen());
+        Assertions.assertEquals(gameOver, game.getGameOver());
+    }
+
+    private static String fixture(String name) throws IOException {
+        try (InputStream in = LegacyGameJsonTests.class.getResourceAsStream("/legacy/" + name + ".json")) {
+            Assertions.assertNotNull(in, "missing fixture " + name);
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
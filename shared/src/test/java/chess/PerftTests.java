@@ -0,0 +1,52 @@
+package chess;
+
+import org.junit.jupiter.api.*;
+
+public class PerftTests {
+
+    @Test
+    @DisplayName("Perft Starting Position")
+    public void perftStart() {
+        Assertions.assertDoesNotThrow(() -> Perft.verify(Perft.Position.START, 4));
+    }
+
+    @Test
+    @DisplayName("Perft Kiwipete")
+    public void perftKiwipete() {
+        Assertions.assertDoesNotThrow(() -> Perft.verify(Perft.Position.KIWIPETE, 3));
+    }
+
+    @Test
+    @DisplayName("Perft En Passant Endgame")
+    public void perftEndgame() {
+        Assertions.assertDoesNotThrow(() -> Perft.verify(Perft.Position.ENDGAME, 5));
+    }
+
+    @Test
+    @DisplayName("Perft Promotions")
+    public void perftPromotions() {
+        Assertions.assertDoesNotThrow(() -> Perft.verify(Perft.Position.PROMOTIONS, 3));
+    }
+
+    @Test
+    @DisplayName("Perft Discovered Checks")
+    public void perftDiscoveredChecks() {
+        Assertions.assertDoesNotThrow(() -> Perft.verify(Perft.Position.DISCOVERED_CHECKS, 3));
+    }
+
+    @Test
+    @DisplayName("Perft Middlegame")
+    public void perftMiddlegame() {
+        Assertions.assertDoesNotThrow(() -> Perft.verify(Perft.Position.MIDDLEGAME, 3));
+    }
+
+    @Test
+    @DisplayName("Perft Leaves Game Unchanged")
+    public void perftLeavesGameUnchanged() {
+        ChessGame game = Perft.Position.KIWIPETE.newGame();
+        ChessBoard before = new ChessBoard(game.getBoard());
+        Perft.perft(game, 2);
+        Assertions.assertEquals(before, game.getBoard());
+        Assertions.assertEquals(ChessGame.TeamColor.WHITE, game.getTeamTurn());
+    }
+}
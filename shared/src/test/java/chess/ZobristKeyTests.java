@@ -0,0 +1,93 @@
+package chess;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.*;
+
+public class ZobristKeyTests {
+    private static final Gson GSON = new Gson();
+
+    @Test
+    @DisplayName("Same Position Reached Different Ways")
+    public void transposition() throws InvalidMoveException {
+        ChessGame first = new ChessGame();
+        play(first, "g1f3", "b8c6", "b1c3");
+        ChessGame second = new ChessGame();
+        play(second, "b1c3", "b8c6", "g1f3");
+        Assertions.assertEquals(first.getZobristKey(), second.getZobristKey());
+    }
+
+    @Test
+    @DisplayName("Side To Move Changes Key")
+    public void sideToMove() {
+        ChessGame game = new ChessGame();
+        long whiteToMove = game.getZobristKey();
+        game.setTeamTurn(ChessGame.TeamColor.BLACK);
+        Assertions.assertNotEquals(whiteToMove, game.getZobristKey());
+    }
+
+    @Test
+    @DisplayName("Lost Castling Rights Change Key")
+    public void castlingRights() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        long start = game.getZobristKey();
+        play(game, "g1f3", "g8f6", "h1g1", "h8g8", "g1h1", "g8h8", "f3g1", "f6g8");
+        Assertions.assertEquals(new ChessGame().getBoard(), game.getBoard());
+        Assertions.assertNotEquals(start, game.getZobristKey());
+    }
+
+    @Test
+    @DisplayName("En Passant Only Counts When A Capture Is Possible")
+    public void enPassantOnlyWhenCapturable() throws InvalidMoveException {
+        ChessGame doubleMove = new ChessGame();
+        play(doubleMove, "e2e4", "e7e5");
+        ChessGame singleMoves = new ChessGame();
+        play(singleMoves, "e2e3", "e7e6", "e3e4", "e6e5");
+        Assertions.assertEquals(singleMoves.getZobristKey(), doubleMove.getZobristKey());
+
+        play(doubleMove, "d2d4", "d7d6", "d4d5", "c7c5");
+        Assertions.assertEquals(ChessPosition.of(6, 3), doubleMove.getBoard().getEnPassantPosition());
+    }
+
+    @Test
+    @DisplayName("Incremental Key Matches Key From Scratch")
+    public void incrementalMatchesScratch() {
+        //Kiwipete for castling, the endgame for en passant
+        for (Perft.Position position : new Perft.Position[] {Perft.Position.KIWIPETE, Perft.Position.ENDGAME}) {
+            ChessGame game = position.newGame();
+            long before = game.getZobristKey();
+            checkKeys(game, position == Perft.Position.KIWIPETE ? 2 : 3);
+            Assertions.assertEquals(before, game.getZobristKey());
+        }
+    }
+
+    //walks every move sequence like perft, comparing the updated key with one computed from scratch
+    private static void checkKeys(ChessGame game, int depth) {
+        ChessBoard board = game.getBoard();
+        Assertions.assertEquals(rebuild(board).getZobristKey(), board.getZobristKey(), board.toString());
+        if (depth == 0) {
+            return;
+        }
+        ChessGame.TeamColor team = game.getTeamTurn();
+        for (long pieces = board.getOccupancy(team); pieces != 0; pieces &= pieces - 1) {
+            for (ChessMove move : game.validMoves(ChessBoard.toPosition(Long.numberOfTrailingZeros(pieces)))) {
+                board.makeMove(move);
+                game.setTeamTurn(team.opponent());
+                checkKeys(game, depth - 1);
+                game.setTeamTurn(team);
+                board.unmakeMove();
+            }
+        }
+    }
+
+    //boards read back from JSON work their keys out from scratch
+    private static ChessBoard rebuild(ChessBoard board) {
+        return GSON.fromJson(GSON.toJson(board), ChessBoard.class);
+    }
+
+    private static void play(ChessGame game, String... moves) throws InvalidMoveException {
+        for (String move : moves) {
+            game.makeMove(new ChessMove(new ChessPosition(move.charAt(1) - '0', move.charAt(0) - 'a' + 1),
+                    new ChessPosition(move.charAt(3) - '0', move.charAt(2) - 'a' + 1), null));
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package chess.engine;
+
+import chess.*;
+import com.google.gson.Gson;
+import org.junit.jupiter.api.*;
+
+public class EvaluatorTests {
+    private static final Gson GSON = new Gson();
+
+    @Test
+    @DisplayName("Starting Position Is Even")
+    public void startingPositionEven() {
+        ChessBoard board = new ChessGame().getBoard();
+        Evaluator evaluator = new Evaluator();
+        Assertions.assertEquals(0, evaluator.evaluate(board, ChessGame.TeamColor.WHITE));
+        Assertions.assertEquals(0, evaluator.evaluate(board, ChessGame.TeamColor.BLACK));
+        Assertions.assertEquals(ChessBoard.MAX_PHASE, board.getGamePhase());
+    }
+
+    @Test
+    @DisplayName("Mirrored Position Scores The Same")
+    public void mirroredPositionSymmetric() {
+        ChessBoard board = Perft.Position.KIWIPETE.newGame().getBoard();
+        ChessBoard mirrored = new ChessBoard();
+        for (int row = 1; row <= 8; ++row) {
+            for (int col = 1; col <= 8; ++col) {
+                ChessPiece piece = board.getPiece(ChessPosition.of(row, col));
+                if (piece != null) {
+                    mirrored.addPiece(ChessPosition.of(9 - row, col),
+                            ChessPiece.of(piece.getTeamColor().opponent(), piece.getPieceType()));
+                }
+            }
+        }
+        Evaluator evaluator = new Evaluator();
+        Assertions.assertEquals(evaluator.evaluate(board, ChessGame.TeamColor.WHITE),
+                evaluator.evaluate(mirrored, ChessGame.TeamColor.BLACK));
+    }
+
+    @Test
+    @DisplayName("Passed Pawn Counts More In The Endgame")
+    public void passedPawnEndgame() {
+        ChessBoard board = new ChessBoard();
+        board.addPiece(ChessPosition.of(1, 5), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        board.addPiece(ChessPosition.of(8, 5), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        board.addPiece(ChessPosition.of(6, 1), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        Evaluator evaluator = new Evaluator();
+        int endgame = evaluator.evaluate(board, ChessGame.TeamColor.WHITE);
+
+        for (int col = 2; col <= 8; col += 2) {
+            board.addPiece(ChessPosition.of(1, col), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN));
+            board.addPiece(ChessPosition.of(8, col), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN));
+        }
+        Assertions.assertEquals(ChessBoard.MAX_PHASE + 8, board.getGamePhase());
+        int middlegame = evaluator.evaluate(board, ChessGame.TeamColor.WHITE);
+        Assertions.assertTrue(endgame > middlegame, endgame + " vs " + middlegame);
+        Assertions.assertTrue(evaluator.getPawnCacheHitRate() > 0);
+    }
+
+    @Test
+    @DisplayName("Incremental Totals Match Totals From Scratch")
+    public void incrementalMatchesScratch() {
+        ChessGame game = Perft.Position.KIWIPETE.newGame();
+        checkTotals(game, 2);
+    }
+
+    //walks every move sequence like perft, comparing the updated totals with ones worked out from scratch
+    private static void checkTotals(ChessGame game, int depth) {
+        ChessBoard board = game.getBoard();
+        ChessBoard rebuilt = GSON.fromJson(GSON.toJson(board), ChessBoard.class);
+        Assertions.assertEquals(rebuilt.getMidgameScore(), board.getMidgameScore(), board.toString());
+        Assertions.assertEquals(rebuilt.getEndgameScore(), board.getEndgameScore(), board.toString());
+        Assertions.assertEquals(rebuilt.getGamePhase(), board.getGamePhase(), board.toString());
+        Assertions.assertEquals(rebuilt.getPawnKey(), board.getPawnKey(), board.toString());
+        if (depth == 0) {
+            return;
+        }
+        MoveList moves = new MoveList();
+        game.generateMoves(moves);
+        ChessGame.TeamColor team = game.getTeamTurn();
+        for (int i = 0; i < moves.size(); ++i) {
+            board.makeMove(moves.get(i));
+            game.setTeamTurn(team.opponent());
+            checkTotals(game, depth - 1);
+            game.setTeamTurn(team);
+            board.unmakeMove();
+        }
+    }
+}
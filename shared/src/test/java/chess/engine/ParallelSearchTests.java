@@ -0,0 +1,43 @@
+package chess.engine;
+
+import chess.*;
+import org.junit.jupiter.api.*;
+
+public class ParallelSearchTests {
+
+    @Test
+    @DisplayName("Threads Agree On Forced Capture")
+    public void findsCapture() {
+        ChessBoard board = new ChessBoard();
+        board.addPiece(ChessPosition.of(1, 1), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
+        board.addPiece(ChessPosition.of(1, 4), ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK));
+        board.addPiece(ChessPosition.of(8, 8), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        board.addPiece(ChessPosition.of(5, 4), ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN));
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+
+        try (ParallelSearch search = new ParallelSearch(4, new TranspositionTable(4))) {
+            SearchResult result = search.search(game, SearchLimits.depth(4));
+            Assertions.assertEquals(new ChessMove(ChessPosition.of(1, 4), ChessPosition.of(5, 4), null), result.bestMove());
+        }
+    }
+
+    @Test
+    @DisplayName("Helpers Stop With Main Search")
+    public void helpersStop() {
+        ChessGame game = Perft.Position.KIWIPETE.newGame();
+        try (ParallelSearch search = new ParallelSearch(3, new TranspositionTable(8))) {
+            for (int i = 0; i < 2; ++i) {
+                SearchResult result = search.search(game, SearchLimits.time(150));
+                Assertions.assertTrue(game.getStatus().getLegalMoves().contains(result.bestMove()));
+                Assertions.assertTrue(result.timeMillis() < 1000, "took " + result.timeMillis() + "ms");
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Needs A Thread")
+    public void needsThread() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new ParallelSearch(0, new TranspositionTable(1)));
+    }
+}
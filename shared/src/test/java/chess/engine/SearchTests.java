@@ -0,0 +1,82 @@
+package chess.engine;
+
+import chess.*;
+import org.junit.jupiter.api.*;
+
+public class SearchTests {
+
+    @Test
+    @DisplayName("Finds Back Rank Mate")
+    public void findsMateInOne() {
+        ChessBoard board = new ChessBoard();
+        place(board, 1, 7, ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING);
+        place(board, 1, 1, ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK);
+        place(board, 8, 7, ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING);
+        for (int col = 6; col <= 8; ++col) {
+            place(board, 7, col, ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN);
+        }
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+
+        SearchResult result = new Search().search(game, SearchLimits.depth(4));
+        Assertions.assertEquals(new ChessMove(ChessPosition.of(1, 1), ChessPosition.of(8, 1), null), result.bestMove());
+        Assertions.assertTrue(result.isMate());
+        Assertions.assertEquals(1, result.mateIn());
+    }
+
+    @Test
+    @DisplayName("Captures Hanging Queen")
+    public void capturesHangingQueen() {
+        ChessBoard board = new ChessBoard();
+        place(board, 1, 1, ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING);
+        place(board, 1, 4, ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK);
+        place(board, 8, 8, ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING);
+        place(board, 5, 4, ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN);
+        place(board, 7, 7, ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN);
+        place(board, 7, 8, ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN);
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+
+        SearchResult result = new Search().search(game, SearchLimits.depth(3));
+        Assertions.assertEquals(new ChessMove(ChessPosition.of(1, 4), ChessPosition.of(5, 4), null), result.bestMove());
+        Assertions.assertTrue(result.score() > 0);
+    }
+
+    @Test
+    @DisplayName("Principal Variation Is Playable")
+    public void principalVariationIsPlayable() throws InvalidMoveException {
+        ChessGame game = Perft.Position.KIWIPETE.newGame();
+        long key = game.getZobristKey();
+        SearchResult result = new Search().search(game, SearchLimits.depth(4));
+        Assertions.assertEquals(key, game.getZobristKey(), "search changed the game");
+        Assertions.assertEquals(4, result.depth());
+        Assertions.assertFalse(result.principalVariation().isEmpty());
+        Assertions.assertEquals(result.bestMove(), result.principalVariation().get(0));
+        for (ChessMove move : result.principalVariation()) {
+            game.makeMove(move);
+        }
+    }
+
+    @Test
+    @DisplayName("Stops At Node Limit")
+    public void stopsAtNodeLimit() {
+        ChessGame game = new ChessGame();
+        SearchResult result = new Search().search(game, SearchLimits.nodes(20_000));
+        Assertions.assertNotNull(result.bestMove());
+        Assertions.assertTrue(game.getStatus().getLegalMoves().contains(result.bestMove()));
+        Assertions.assertTrue(result.nodes() < 25_000, "searched " + result.nodes() + " nodes");
+        Assertions.assertTrue(result.depth() < SearchLimits.MAX_DEPTH);
+    }
+
+    @Test
+    @DisplayName("Stops In Time")
+    public void stopsInTime() {
+        SearchResult result = new Search().search(Perft.Position.KIWIPETE.newGame(), SearchLimits.time(200));
+        Assertions.assertNotNull(result.bestMove());
+        Assertions.assertTrue(result.timeMillis() < 1000, "took " + result.timeMillis() + "ms");
+    }
+
+    private static void place(ChessBoard board, int row, int col, ChessGame.TeamColor team, ChessPiece.PieceType type) {
+        board.addPiece(ChessPosition.of(row, col), ChessPiece.of(team, type));
+    }
+}
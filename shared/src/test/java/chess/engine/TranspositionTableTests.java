@@ -0,0 +1,75 @@
+package chess.engine;
+
+import chess.*;
+import org.junit.jupiter.api.*;
+
+public class TranspositionTableTests {
+
+    @Test
+    @DisplayName("Size Is A Power Of Two Within The Limit")
+    public void sizeWithinLimit() {
+        TranspositionTable table = new TranspositionTable(3);
+        Assertions.assertEquals(0, table.capacity() & (table.capacity() - 1));
+        Assertions.assertTrue(table.sizeInBytes() <= 3 * 1024 * 1024);
+        Assertions.assertTrue(table.sizeInBytes() > 3 * 1024 * 1024 / 2);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new TranspositionTable(0));
+    }
+
+    @Test
+    @DisplayName("Entry Read Back")
+    public void storeAndProbe() {
+        TranspositionTable table = new TranspositionTable(1);
+        long key = 0x1234_5678_9ABC_DEF0L;
+        int move = Move.of(12, 28, Move.DOUBLE_PAWN_PUSH);
+        table.store(key, move, -Search.MATE + 5, 7, TranspositionTable.LOWER);
+
+        long entry = table.probe(key);
+        Assertions.assertEquals(move, TranspositionTable.move(entry));
+        Assertions.assertEquals(-Search.MATE + 5, TranspositionTable.score(entry));
+        Assertions.assertEquals(7, TranspositionTable.depth(entry));
+        Assertions.assertEquals(TranspositionTable.LOWER, TranspositionTable.bound(entry));
+
+        //same index, different position
+        Assertions.assertEquals(0L, table.probe(key ^ (1L << 62)));
+    }
+
+    @Test
+    @DisplayName("Torn Write Reads As Missing")
+    public void tornWriteMissing() {
+        TranspositionTable table = new TranspositionTable(1);
+        long key = 42L;
+        table.store(key, Move.NONE, 100, 3, TranspositionTable.EXACT);
+        int index = (int) key * 2;
+        //another thread's data landing next to this key
+        table.table[index + 1] = TranspositionTable.pack(Move.NONE, -100, 9, TranspositionTable.EXACT, 0);
+        Assertions.assertEquals(0L, table.probe(key));
+    }
+
+    @Test
+    @DisplayName("Deeper Entry Kept During A Search")
+    public void replacement() {
+        TranspositionTable table = new TranspositionTable(1);
+        long first = 5L;
+        long second = first + table.capacity();
+        table.store(first, Move.NONE, 10, 8, TranspositionTable.EXACT);
+        table.store(second, Move.NONE, 20, 2, TranspositionTable.EXACT);
+        Assertions.assertNotEquals(0L, table.probe(first));
+        Assertions.assertEquals(0L, table.probe(second));
+
+        table.newSearch();
+        table.store(second, Move.NONE, 20, 2, TranspositionTable.EXACT);
+        Assertions.assertEquals(0L, table.probe(first));
+        Assertions.assertEquals(20, TranspositionTable.score(table.probe(second)));
+    }
+
+    @Test
+    @DisplayName("Shared Table Speeds Up Repeated Search")
+    public void repeatedSearchUsesTable() {
+        TranspositionTable table = new TranspositionTable(8);
+        ChessGame game = Perft.Position.KIWIPETE.newGame();
+        SearchResult first = new Search(table).search(game, SearchLimits.depth(5));
+        SearchResult second = new Search(table).search(game, SearchLimits.depth(5));
+        Assertions.assertTrue(second.nodes() < first.nodes(), first.nodes() + " then " + second.nodes());
+        Assertions.assertEquals(first.score(), second.score());
+    }
+}